@@ -0,0 +1,532 @@
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Runs the install goals of the plugin end to end, in generated reactors of 1, 4 and 16 modules that build in
+ * parallel, against a mirror in this JVM that serves synthetic Node.js, npm, pnpm, Yarn, corepack and Bun
+ * releases. Every goal runs with a cold cache (nothing downloaded or installed), a warm cache (downloaded but
+ * not installed) and already installed, and the wall time, the bytes the mirror sent, the files written and
+ * the files linked into the modules (from the install store, which keep their modification time) are reported,
+ * also as JSON.
+ * <p>
+ * Install the plugin first ({@code mvn install}), then run from the root of the repository:
+ * <pre>
+ * java frontend-maven-plugin/src/benchmark/InstallBenchmark.java [--goals install-node-and-npm,install-bun]
+ *     [--modules 1,4,16] [--mvn mvn] [--local-repo ~/.m2/repository] [--work target/install-benchmark]
+ * </pre>
+ * The synthetic tools are shell scripts, so this runs on Linux and macOS only. They get version 99.0.0, which
+ * is all that's deleted from the local repository for a cold cache.
+ */
+public class InstallBenchmark {
+
+    private static final String VERSION = "99.0.0";
+
+    private static final List<String> GOALS = Arrays.asList("install-node-and-npm", "install-node-and-pnpm",
+            "install-node-and-yarn", "install-node-and-corepack", "install-bun");
+
+    private static final List<String> TOOLS = Arrays.asList("node", "npm", "pnpm", "yarn", "corepack", "bun");
+
+    private static final List<String> CONDITIONS = Arrays.asList("cold", "warm", "installed");
+
+    private final Map<String, byte[]> files = new LinkedHashMap<>();
+
+    private final AtomicLong bytesSent = new AtomicLong();
+
+    private final AtomicLong requests = new AtomicLong();
+
+    private final Random random = new Random(42);
+
+    private String mvn = "mvn";
+
+    private File localRepository = new File(System.getProperty("user.home"), ".m2/repository");
+
+    private File workDirectory = new File("frontend-maven-plugin/target/install-benchmark");
+
+    private String pluginVersion;
+
+    private List<String> goals = GOALS;
+
+    private List<Integer> moduleCounts = Arrays.asList(1, 4, 16);
+
+    private String mirror;
+
+    public static void main(String[] args) throws Exception {
+        InstallBenchmark benchmark = new InstallBenchmark();
+        for (int i = 0; i < args.length; i += 2) {
+            String value = i + 1 < args.length ? args[i + 1] : "";
+            switch (args[i]) {
+                case "--goals":
+                    benchmark.goals = Arrays.asList(value.split(","));
+                    break;
+                case "--modules":
+                    benchmark.moduleCounts = new ArrayList<>();
+                    for (String count : value.split(",")) {
+                        benchmark.moduleCounts.add(Integer.parseInt(count));
+                    }
+                    break;
+                case "--mvn":
+                    benchmark.mvn = value;
+                    break;
+                case "--local-repo":
+                    benchmark.localRepository = new File(value);
+                    break;
+                case "--work":
+                    benchmark.workDirectory = new File(value);
+                    break;
+                case "--plugin-version":
+                    benchmark.pluginVersion = value;
+                    break;
+                default:
+                    System.err.println("Unknown option " + args[i]);
+                    System.exit(2);
+            }
+        }
+        benchmark.run();
+    }
+
+    private void run() throws Exception {
+        if (pluginVersion == null) {
+            pluginVersion = readPluginVersion();
+        }
+        createReleases();
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", this::serve);
+        server.start();
+        mirror = "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/";
+        List<Map<String, Object>> results = new ArrayList<>();
+        try {
+            System.out.printf(Locale.ROOT, "%-28s %7s %-10s %10s %12s %9s %8s %8s%n",
+                    "goal", "modules", "condition", "wall (ms)", "bytes sent", "requests", "files", "linked");
+            for (int modules : moduleCounts) {
+                File project = createReactor("validate", modules, "install-bun");
+                results.add(measure("maven (no goal)", modules, "baseline", project, "validate"));
+                for (String goal : goals) {
+                    project = createReactor(goal, modules, goal);
+                    for (String condition : CONDITIONS) {
+                        if (!"installed".equals(condition)) {
+                            deleteDirectories(project, "target");
+                        }
+                        if ("cold".equals(condition)) {
+                            for (String tool : TOOLS) {
+                                deleteDirectory(new File(localRepository, "com/github/eirslett/" + tool + "/" + VERSION));
+                            }
+                        }
+                        results.add(measure(goal, modules, condition, project, "generate-resources"));
+                    }
+                }
+            }
+        } finally {
+            server.stop(0);
+        }
+        File report = new File(workDirectory, "results.json");
+        Files.write(report.toPath(), toJson(results).getBytes(StandardCharsets.UTF_8));
+        System.out.println("Results written to " + report);
+    }
+
+    private Map<String, Object> measure(String goal, int modules, String condition, File project, String phase)
+            throws Exception {
+        bytesSent.set(0);
+        requests.set(0);
+        FileTime start = FileTime.fromMillis(System.currentTimeMillis());
+        long startNanos = System.nanoTime();
+        File log = new File(workDirectory, goal.replace(' ', '-') + "-" + modules + "-" + condition + ".log");
+        Process process = new ProcessBuilder(mvn, "-B", "-T", Integer.toString(modules),
+                "-Dmaven.repo.local=" + localRepository.getAbsolutePath(), "-f", project.getPath() + "/pom.xml", phase)
+                .redirectErrorStream(true)
+                .redirectOutput(log)
+                .start();
+        int exitCode = process.waitFor();
+        long millis = (System.nanoTime() - startNanos) / 1_000_000;
+        if (exitCode != 0) {
+            throw new IllegalStateException("The build failed, see " + log);
+        }
+        long filesWritten = countFilesWrittenSince(project, start);
+        for (String tool : TOOLS) {
+            filesWritten += countFilesWrittenSince(new File(localRepository, "com/github/eirslett/" + tool + "/" + VERSION),
+                    start);
+        }
+        long filesLinked = countFilesLinkedSince(project, start);
+        System.out.printf(Locale.ROOT, "%-28s %7d %-10s %10d %12d %9d %8d %8d%n",
+                goal, modules, condition, millis, bytesSent.get(), requests.get(), filesWritten, filesLinked);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("goal", goal);
+        result.put("modules", modules);
+        result.put("condition", condition);
+        result.put("wallMillis", millis);
+        result.put("bytesSent", bytesSent.get());
+        result.put("requests", requests.get());
+        result.put("filesWritten", filesWritten);
+        result.put("filesLinked", filesLinked);
+        return result;
+    }
+
+    private File createReactor(String name, int modules, String goal) throws IOException {
+        File project = new File(workDirectory, name + "-" + modules);
+        project.mkdirs();
+        StringBuilder moduleList = new StringBuilder();
+        for (int i = 1; i <= modules; i++) {
+            moduleList.append("        <module>module-").append(i).append("</module>\n");
+            File module = new File(project, "module-" + i);
+            module.mkdirs();
+            write(new File(module, "pom.xml"), pom("module-" + i, "", plugin(goal)));
+        }
+        write(new File(project, "pom.xml"), pom("benchmark", "    <modules>\n" + moduleList + "    </modules>\n", ""));
+        return project;
+    }
+
+    private String pom(String artifactId, String modules, String build) {
+        return "<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n"
+                + "    <modelVersion>4.0.0</modelVersion>\n"
+                + "    <groupId>com.github.eirslett.benchmark</groupId>\n"
+                + "    <artifactId>" + artifactId + "</artifactId>\n"
+                + "    <version>0</version>\n"
+                + "    <packaging>pom</packaging>\n"
+                + modules
+                + build
+                + "</project>\n";
+    }
+
+    private String plugin(String goal) {
+        String configuration = "<installDirectory>target</installDirectory>";
+        if (goal.startsWith("install-node-and-")) {
+            configuration += "<nodeVersion>v" + VERSION + "</nodeVersion>"
+                    + "<nodeDownloadRoot>" + mirror + "node/</nodeDownloadRoot>";
+        }
+        switch (goal) {
+            case "install-node-and-npm":
+                configuration += "<npmVersion>" + VERSION + "</npmVersion>"
+                        + "<npmDownloadRoot>" + mirror + "npm/-/</npmDownloadRoot>";
+                break;
+            case "install-node-and-pnpm":
+                configuration += "<pnpmVersion>" + VERSION + "</pnpmVersion>"
+                        + "<pnpmDownloadRoot>" + mirror + "pnpm/-/</pnpmDownloadRoot>";
+                break;
+            case "install-node-and-yarn":
+                configuration += "<yarnVersion>v" + VERSION + "</yarnVersion>"
+                        + "<yarnDownloadRoot>" + mirror + "yarn/</yarnDownloadRoot>";
+                break;
+            case "install-node-and-corepack":
+                configuration += "<corepackVersion>" + VERSION + "</corepackVersion>"
+                        + "<corepackDownloadRoot>" + mirror + "corepack/-/</corepackDownloadRoot>";
+                break;
+            default:
+                configuration += "<bunVersion>v" + VERSION + "</bunVersion>"
+                        + "<bunDownloadRoot>" + mirror + "bun/</bunDownloadRoot>";
+        }
+        return "    <build>\n"
+                + "        <plugins>\n"
+                + "            <plugin>\n"
+                + "                <groupId>com.github.eirslett</groupId>\n"
+                + "                <artifactId>frontend-maven-plugin</artifactId>\n"
+                + "                <version>" + pluginVersion + "</version>\n"
+                + "                <executions>\n"
+                + "                    <execution>\n"
+                + "                        <id>install</id>\n"
+                + "                        <goals><goal>" + goal + "</goal></goals>\n"
+                + "                        <configuration>" + configuration + "</configuration>\n"
+                + "                    </execution>\n"
+                + "                </executions>\n"
+                + "            </plugin>\n"
+                + "        </plugins>\n"
+                + "    </build>\n";
+    }
+
+    /**
+     * Creates releases shaped like the real ones: a big binary and a few thousand small files for Node.js, a
+     * package of small files for the package managers, and the checksums the installers verify them with.
+     */
+    private void createReleases() throws IOException, NoSuchAlgorithmException {
+        String nodeName = "node-v" + VERSION + "-" + nodeClassifier();
+        Tar node = new Tar();
+        node.add(nodeName + "/bin/node", script("v" + VERSION), true);
+        node.add(nodeName + "/include/node/payload.bin", randomBytes(24 * 1024 * 1024), false);
+        addSources(node, nodeName + "/lib/node_modules/npm/", 2000);
+        byte[] nodeArchive = node.toTarGz();
+        files.put("node/v" + VERSION + "/" + nodeName + ".tar.gz", nodeArchive);
+        files.put("node/v" + VERSION + "/SHASUMS256.txt", (hex(digest("SHA-256", nodeArchive)) + "  " + nodeName
+                + ".tar.gz\n").getBytes(StandardCharsets.UTF_8));
+
+        addPackage("npm", 1500);
+        addPackage("pnpm", 300);
+        addPackage("corepack", 400);
+
+        Tar yarn = new Tar();
+        yarn.add("yarn-v" + VERSION + "/bin/yarn", script(VERSION), true);
+        addSources(yarn, "yarn-v" + VERSION + "/lib/", 50);
+        files.put("yarn/v" + VERSION + "/yarn-v" + VERSION + ".tar.gz", yarn.toTarGz());
+
+        String bunName = "bun-" + bunTarget();
+        ByteArrayOutputStream bun = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bun)) {
+            zip.putNextEntry(new ZipEntry(bunName + "/bun"));
+            zip.write(script(VERSION));
+            zip.putNextEntry(new ZipEntry(bunName + "/payload.bin"));
+            zip.write(randomBytes(16 * 1024 * 1024));
+        }
+        files.put("bun/bun-v" + VERSION + "/" + bunName + ".zip", bun.toByteArray());
+    }
+
+    private void addPackage(String name, int sourceFiles) throws IOException, NoSuchAlgorithmException {
+        Tar tar = new Tar();
+        tar.add("package/package.json", ("{\"name\":\"" + name + "\",\"version\":\"" + VERSION + "\"}")
+                .getBytes(StandardCharsets.UTF_8), false);
+        tar.add("package/bin/" + name + ".js", script(VERSION), true);
+        tar.add("package/bin/" + name + ".cjs", script(VERSION), true);
+        tar.add("package/bin/" + name + "-cli.js", script(VERSION), true);
+        tar.add("package/bin/npx-cli.js", script(VERSION), true);
+        tar.add("package/dist/" + name + ".js", script(VERSION), true);
+        addSources(tar, "package/lib/", sourceFiles);
+        byte[] archive = tar.toTarGz();
+        files.put(name + "/-/" + name + "-" + VERSION + ".tgz", archive);
+        files.put(name + "/" + VERSION, ("{\"dist\":{\"integrity\":\"sha512-"
+                + Base64.getEncoder().encodeToString(digest("SHA-512", archive)) + "\"}}")
+                .getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void addSources(Tar tar, String directory, int count) throws IOException {
+        String[] words = {"function ", "return ", "const ", "module.exports", " = ", "require(", ");\n", "{", "}"};
+        for (int i = 0; i < count; i++) {
+            StringBuilder source = new StringBuilder();
+            int size = random.nextInt(12 * 1024);
+            while (source.length() < size) {
+                source.append(words[random.nextInt(words.length)]);
+            }
+            tar.add(directory + "module-" + (i / 25) + "/file-" + i + ".js",
+                    source.toString().getBytes(StandardCharsets.UTF_8), false);
+        }
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        byte[] content = files.get(exchange.getRequestURI().getPath().substring(1));
+        if (content == null) {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+        if ("HEAD".equals(exchange.getRequestMethod())) {
+            exchange.getResponseHeaders().add("Content-Length", Integer.toString(content.length));
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+            return;
+        }
+        exchange.sendResponseHeaders(200, content.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(content);
+        }
+        bytesSent.addAndGet(content.length);
+    }
+
+    private String readPluginVersion() throws IOException {
+        File pom = new File("pom.xml");
+        if (pom.isFile()) {
+            Matcher matcher = Pattern.compile("<artifactId>frontend-plugins</artifactId>\\s*<version>([^<]+)</version>")
+                    .matcher(new String(Files.readAllBytes(pom.toPath()), StandardCharsets.UTF_8));
+            if (matcher.find()) {
+                return matcher.group(1);
+            }
+        }
+        throw new IllegalStateException("Run from the root of the repository, or pass --plugin-version");
+    }
+
+    private static String nodeClassifier() {
+        String os = System.getProperty("os.name").toLowerCase(Locale.ROOT);
+        return (os.contains("mac") ? "darwin" : "linux") + "-" + (isArm() ? "arm64" : "x64");
+    }
+
+    private static String bunTarget() {
+        String os = System.getProperty("os.name").toLowerCase(Locale.ROOT);
+        return (os.contains("mac") ? "darwin" : "linux") + "-" + (isArm() ? "aarch64" : "x64");
+    }
+
+    private static boolean isArm() {
+        String arch = System.getProperty("os.arch");
+        return arch.equals("aarch64") || arch.equals("arm64");
+    }
+
+    private static byte[] script(String version) {
+        return ("#!/bin/sh\necho " + version + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    private static byte[] digest(String algorithm, byte[] content) throws NoSuchAlgorithmException {
+        return MessageDigest.getInstance(algorithm).digest(content);
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    private static long countFilesWrittenSince(File directory, FileTime start) throws IOException {
+        if (!directory.isDirectory()) {
+            return 0;
+        }
+        try (Stream<Path> paths = Files.walk(directory.toPath())) {
+            return paths.filter(Files::isRegularFile)
+                    .filter(path -> !path.toString().endsWith(".lock"))
+                    .filter(path -> {
+                        try {
+                            return Files.getLastModifiedTime(path).compareTo(start) >= 0;
+                        } catch (IOException e) {
+                            return false;
+                        }
+                    })
+                    .count();
+        }
+    }
+
+    /**
+     * Counts the symbolic links created since the start, and the hard links: files with more than one link
+     * whose inode changed since the start, but not their content.
+     */
+    private static long countFilesLinkedSince(File directory, FileTime start) throws IOException {
+        if (!directory.isDirectory()) {
+            return 0;
+        }
+        try (Stream<Path> paths = Files.walk(directory.toPath())) {
+            return paths.filter(path -> {
+                try {
+                    Map<String, Object> attributes = Files.readAttributes(path,
+                            "unix:isSymbolicLink,isRegularFile,lastModifiedTime,ctime,nlink", LinkOption.NOFOLLOW_LINKS);
+                    FileTime lastModified = (FileTime) attributes.get("lastModifiedTime");
+                    if ((Boolean) attributes.get("isSymbolicLink")) {
+                        return lastModified.compareTo(start) >= 0;
+                    }
+                    return (Boolean) attributes.get("isRegularFile")
+                            && (Integer) attributes.get("nlink") > 1
+                            && ((FileTime) attributes.get("ctime")).compareTo(start) >= 0
+                            && lastModified.compareTo(start) < 0;
+                } catch (IOException e) {
+                    return false;
+                }
+            }).count();
+        }
+    }
+
+    private static void deleteDirectories(File project, String name) throws IOException {
+        File[] modules = project.listFiles(File::isDirectory);
+        if (modules != null) {
+            for (File module : modules) {
+                deleteDirectory(new File(module, name));
+            }
+        }
+        deleteDirectory(new File(project, name));
+    }
+
+    private static void deleteDirectory(File directory) throws IOException {
+        if (!directory.exists()) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory.toPath())) {
+            for (Path path : (Iterable<Path>) paths.sorted((a, b) -> b.compareTo(a))::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private static void write(File file, String content) throws IOException {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String toJson(List<Map<String, Object>> results) {
+        StringBuilder json = new StringBuilder("[\n");
+        for (int i = 0; i < results.size(); i++) {
+            json.append("  {");
+            int field = 0;
+            for (Map.Entry<String, Object> entry : results.get(i).entrySet()) {
+                json.append(field++ > 0 ? ", " : "").append('"').append(entry.getKey()).append("\": ");
+                Object value = entry.getValue();
+                json.append(value instanceof String ? "\"" + value + "\"" : value);
+            }
+            json.append(i < results.size() - 1 ? "},\n" : "}\n");
+        }
+        return json.append("]\n").toString();
+    }
+
+    /**
+     * Just enough of the ustar format for regular files with short names.
+     */
+    private static final class Tar {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        void add(String name, byte[] content, boolean executable) throws IOException {
+            byte[] header = new byte[512];
+            put(header, 0, name, 100);
+            put(header, 100, executable ? "0000755" : "0000644", 8);
+            put(header, 108, "0000000", 8);
+            put(header, 116, "0000000", 8);
+            put(header, 124, String.format("%011o", content.length), 12);
+            put(header, 136, String.format("%011o", System.currentTimeMillis() / 1000), 12);
+            Arrays.fill(header, 148, 156, (byte) ' ');
+            header[156] = '0';
+            put(header, 257, "ustar", 6);
+            put(header, 263, "00", 2);
+            int checksum = 0;
+            for (byte b : header) {
+                checksum += b & 0xff;
+            }
+            put(header, 148, String.format("%06o", checksum), 7);
+            out.write(header);
+            out.write(content);
+            out.write(new byte[(512 - content.length % 512) % 512]);
+        }
+
+        byte[] toTarGz() throws IOException {
+            out.write(new byte[1024]);
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                out.writeTo(gzip);
+            }
+            return compressed.toByteArray();
+        }
+
+        private static void put(byte[] header, int offset, String value, int length) {
+            byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+            if (bytes.length > length) {
+                throw new IllegalArgumentException(value + " is too long for a tar header");
+            }
+            System.arraycopy(bytes, 0, header, offset, bytes.length);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+assert !new File(basedir, 'target/node').exists(): "Node was installed although the goal is skipped";
+assert !new File(basedir, 'target/bun').exists(): "Bun was installed although the goal is skipped";
+
+import org.codehaus.plexus.util.FileUtils;
+
+String buildLog = FileUtils.fileRead(new File(basedir, 'build.log'));
+
+assert buildLog.contains('BUILD SUCCESS'): 'build was not successful'
+assert !buildLog.contains('in the background'): 'the archives of skipped goals were downloaded ahead of the build'
@@ -1,10 +1,9 @@
 package com.github.eirslett.maven.plugins.frontend.mojo;
 
 import java.io.File;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
 
+import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecution;
 import org.apache.maven.plugin.MojoFailureException;
@@ -12,11 +11,12 @@ import org.apache.maven.plugins.annotations.Component;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.settings.Server;
-import org.codehaus.plexus.util.xml.Xpp3Dom;
 import org.eclipse.aether.RepositorySystemSession;
 
 import com.github.eirslett.maven.plugins.frontend.lib.FrontendException;
 import com.github.eirslett.maven.plugins.frontend.lib.FrontendPluginFactory;
+import com.github.eirslett.maven.plugins.frontend.lib.HttpClientCache;
+import com.github.eirslett.maven.plugins.frontend.lib.InstallRegistry;
 import com.github.eirslett.maven.plugins.frontend.lib.TaskRunnerException;
 
 public abstract class AbstractFrontendMojo extends AbstractMojo {
@@ -57,12 +57,22 @@ public abstract class AbstractFrontendMojo extends AbstractMojo {
     @Parameter
     protected Map<String, String> environmentVariables;
 
+    /**
+     * Whether to write the output of the tools that run to target/frontend-maven-plugin/&lt;goal&gt;-&lt;execution
+     * id&gt;.log instead of the build log, which then only gets their errors and a summary.
+     */
+    @Parameter(property = "frontend.outputToFile", defaultValue = "false")
+    protected boolean outputToFile;
+
     @Parameter(defaultValue = "${project}", readonly = true)
     private MavenProject project;
 
     @Parameter(defaultValue = "${repositorySystemSession}", readonly = true)
     private RepositorySystemSession repositorySystemSession;
 
+    @Parameter(defaultValue = "${session}", readonly = true)
+    private MavenSession mavenSession;
+
     /**
      * Determines if this execution should be skipped.
      */
@@ -96,7 +106,11 @@ public abstract class AbstractFrontendMojo extends AbstractMojo {
             }
             try {
                 execute(new FrontendPluginFactory(workingDirectory, installDirectory,
-                        new RepositoryCacheResolver(repositorySystemSession)));
+                        new RepositoryCacheResolver(repositorySystemSession))
+                        .withHttpClientCache(getHttpClientCache())
+                        .withInstallRegistry(getInstallRegistry())
+                        .withOutputFile(getOutputFile())
+                        .withMetrics(MojoUtils.getMetrics(mavenSession, project)));
             } catch (TaskRunnerException e) {
                 if (testFailureIgnore && isTestingPhase()) {
                     getLog().error("There are test failures.\nFailed to run task: " + e.getMessage(), e);
@@ -110,7 +124,51 @@ public abstract class AbstractFrontendMojo extends AbstractMojo {
             getLog().info("Skipping execution.");
         }
     }
-    
+
+    /**
+     * Provides the log file of this execution when {@link #outputToFile} is set, emptied for this run.
+     *
+     * @return the log file in the build directory, or null to log the output of the tools
+     */
+    private File getOutputFile() {
+        if (!outputToFile) {
+            return null;
+        }
+        File outputFile = getExecutionStateFile(".log");
+        // the tools of this execution append to it
+        outputFile.delete();
+        return outputFile;
+    }
+
+    /**
+     * Provides a file in the build directory to keep the state of this execution in between builds.
+     *
+     * @param extension the extension of the file, including the leading dot
+     * @return the file in target/frontend-maven-plugin, named after the goal and the execution id
+     */
+    protected File getExecutionStateFile(String extension) {
+        return new File(project.getBuild().getDirectory(),
+                "frontend-maven-plugin/" + execution.getGoal() + "-" + execution.getExecutionId() + extension);
+    }
+
+    /**
+     * Provides the HTTP clients shared by all executions in the current Maven session.
+     *
+     * @return the clients of the session, which are closed when it ends
+     */
+    private HttpClientCache getHttpClientCache() {
+        return SessionResources.get(mavenSession, HttpClientCache.class, HttpClientCache::new);
+    }
+
+    /**
+     * Provides the installations done by the executions in the current Maven session.
+     *
+     * @return the registry shared by all executions of the session, created by the first one asking for it
+     */
+    private InstallRegistry getInstallRegistry() {
+        return SessionResources.get(mavenSession, InstallRegistry.class, InstallRegistry::new);
+    }
+
     /** 
      * Provides the HTTP-Headers from the server section of settings.xml.
      * 
@@ -121,25 +179,7 @@ public abstract class AbstractFrontendMojo extends AbstractMojo {
      *         an empty map if there is no such configuration
      */
     protected Map<String, String> getHttpHeaders(Server server) {
-        if (server == null || !(server.getConfiguration() instanceof Xpp3Dom)) {
-            return Collections.emptyMap();
-        }
-        
-        Xpp3Dom configuration = (Xpp3Dom) server.getConfiguration();
-        
-        Map<String, String> result = new HashMap<>();
-
-        Xpp3Dom httpHeaders = configuration.getChild("httpHeaders");
-        if (httpHeaders != null) {
-            for (Xpp3Dom property : httpHeaders.getChildren("property")) {
-                Xpp3Dom name = property.getChild("name");
-                Xpp3Dom value = property.getChild("value");
-                if (name != null && value != null) {
-                    result.put(name.getValue(), value.getValue());
-                }
-            }
-        }
-        return result;
+        return MojoUtils.getHttpHeaders(server);
     }
 
 }
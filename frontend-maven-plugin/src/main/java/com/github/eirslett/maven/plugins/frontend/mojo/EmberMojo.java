@@ -1,7 +1,9 @@
 package com.github.eirslett.maven.plugins.frontend.mojo;
 
 import com.github.eirslett.maven.plugins.frontend.lib.FrontendPluginFactory;
+import com.github.eirslett.maven.plugins.frontend.lib.TaskOutputCache;
 import com.github.eirslett.maven.plugins.frontend.lib.TaskRunnerException;
+import com.github.eirslett.maven.plugins.frontend.lib.UpToDateCheck;
 import org.apache.maven.plugins.annotations.Component;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
@@ -44,6 +46,36 @@ public final class EmberMojo extends AbstractFrontendMojo {
     @Parameter(property = "outputdir")
     private File outputdir;
 
+    /**
+     * Restore the outputdir from a cache in the local repository instead of running ember, if ember
+     * already ran with the same content of srcdir and the triggerfiles, the same arguments and environment,
+     * Node.js version and lockfile. Only used if both srcdir and outputdir are set.
+     */
+    @Parameter(property = "frontend.taskCache", required = false, defaultValue = "false")
+    private boolean useTaskCache;
+
+    /**
+     * Environment variables of the build that affect the output of ember, in addition to the
+     * environmentVariables, so they are part of the task cache key.
+     */
+    @Parameter
+    private List<String> taskCacheEnvironmentVariables;
+
+    /**
+     * Skip ember in command line builds too, if neither srcdir nor the triggerfiles, arguments or
+     * environmentVariables changed since its last successful run. Files are compared by size and modification
+     * time. Only used if srcdir is set.
+     */
+    @Parameter(property = "frontend.incremental", required = false, defaultValue = "false")
+    private boolean incremental;
+
+    /**
+     * Compare the content of files whose size or modification time changed, so ember doesn't run again
+     * for files that were only touched.
+     */
+    @Parameter(property = "frontend.incremental.compareContent", required = false, defaultValue = "false")
+    private boolean incrementalCompareContent;
+
     /**
      * Skips execution of this mojo.
      */
@@ -53,6 +85,8 @@ public final class EmberMojo extends AbstractFrontendMojo {
     @Component
     private BuildContext buildContext;
 
+    private UpToDateCheck upToDateCheck;
+
     @Override
     protected boolean skipExecution() {
         return this.skip;
@@ -61,7 +95,17 @@ public final class EmberMojo extends AbstractFrontendMojo {
     @Override
     public synchronized void execute(FrontendPluginFactory factory) throws TaskRunnerException {
         if (shouldExecute()) {
-            factory.getEmberRunner().execute(arguments, environmentVariables);
+            TaskOutputCache taskCache = MojoUtils.getTaskOutputCache(factory, "ember", useTaskCache, srcdir,
+                triggerfiles, outputdir, arguments, environmentVariables, taskCacheEnvironmentVariables);
+            if (taskCache == null || !taskCache.restore(outputdir)) {
+                factory.getEmberRunner().execute(arguments, environmentVariables);
+                if (taskCache != null) {
+                    taskCache.store(outputdir);
+                }
+            }
+            if (upToDateCheck != null) {
+                upToDateCheck.markUpToDate();
+            }
 
             if (outputdir != null) {
                 getLog().info("Refreshing files after ember: " + outputdir);
@@ -78,7 +122,9 @@ public final class EmberMojo extends AbstractFrontendMojo {
             triggerfiles = Arrays.asList(new File(workingDirectory, "Gruntfile.js"));
         }
 
-        return MojoUtils.shouldExecute(buildContext, triggerfiles, srcdir);
+        upToDateCheck = MojoUtils.getUpToDateCheck("ember", incremental, incrementalCompareContent,
+            getExecutionStateFile(".inputs"), srcdir, triggerfiles, arguments, environmentVariables);
+        return MojoUtils.shouldExecute(buildContext, triggerfiles, srcdir, outputdir, upToDateCheck);
     }
 
 }
\ No newline at end of file
@@ -27,6 +27,13 @@ public final class InstallBunMojo extends AbstractFrontendMojo {
     @Parameter(property = "bunVersion", required = true)
     private String bunVersion;
 
+    /**
+     * Number of concurrent connections used to download the Bun archive. With more than one, the
+     * download is split into byte ranges, if the server supports ranged requests. Defaults to 1.
+     */
+    @Parameter(property = "bunDownloadConnections", required = false, defaultValue = "1")
+    private int bunDownloadConnections;
+
     /**
      * Server Id for download username and password
      */
@@ -57,6 +64,7 @@ public final class InstallBunMojo extends AbstractFrontendMojo {
         if (null != server) {
             factory.getBunInstaller(proxyConfig).setBunVersion(this.bunVersion)
                     .setBunDownloadRoot(this.bunDownloadRoot)
+                    .setDownloadConnections(this.bunDownloadConnections)
                     .setUserName(server.getUsername())
                     .setPassword(server.getPassword())
                     .setHttpHeaders(getHttpHeaders(server))
@@ -64,6 +72,7 @@ public final class InstallBunMojo extends AbstractFrontendMojo {
         } else {
             factory.getBunInstaller(proxyConfig).setBunVersion(this.bunVersion)
                     .setBunDownloadRoot(this.bunDownloadRoot)
+                    .setDownloadConnections(this.bunDownloadConnections)
                     .install();
         }
     }
@@ -37,6 +37,21 @@ public final class InstallNodeAndCorepackMojo extends AbstractFrontendMojo {
     @Parameter(property="nodeVersion", required = true)
     private String nodeVersion;
 
+    /**
+     * Number of concurrent connections used to download the Node.js archive. With more than one, the
+     * download is split into byte ranges, if the server supports ranged requests. Defaults to 1.
+     */
+    @Parameter(property = "nodeDownloadConnections", required = false, defaultValue = "1")
+    private int nodeDownloadConnections;
+
+    /**
+     * Extract Node.js once into a store next to the downloaded archives, and link its files into the
+     * install directory instead of extracting them for every project. Files are hard linked where possible,
+     * so they must not be modified in place. Defaults to false.
+     */
+    @Parameter(property = "useNodeInstallStore", required = false, defaultValue = "false")
+    private boolean useNodeInstallStore;
+
     /**
      * The version of corepack to install. Note that the version string can optionally be prefixed with
      * 'v' (i.e., both 'v1.2.3' and '1.2.3' are valid).
@@ -78,7 +93,9 @@ public final class InstallNodeAndCorepackMojo extends AbstractFrontendMojo {
         // Setup the installers
         NodeInstaller nodeInstaller = factory.getNodeInstaller(proxyConfig);
         nodeInstaller.setNodeVersion(nodeVersion)
-                .setNodeDownloadRoot(resolvedNodeDownloadRoot);
+                .setNodeDownloadRoot(resolvedNodeDownloadRoot)
+                .setDownloadConnections(nodeDownloadConnections)
+                .setUseInstallStore(useNodeInstallStore);
         if ("provided".equals(corepackVersion)) {
             // This causes the node installer to copy over the whole
             // node_modules directory including the corepack module
@@ -102,9 +119,9 @@ public final class InstallNodeAndCorepackMojo extends AbstractFrontendMojo {
                 .setHttpHeaders(httpHeaders);
         }
 
-        // Perform the installation
-        nodeInstaller.install();
-        corepackInstaller.install();
+        // Perform the installation, downloading corepack while node is installed
+        MojoUtils.installNodeAndPackageManager(nodeInstaller::install, corepackInstaller::download,
+            corepackInstaller::install);
     }
 
     private String getNodeDownloadRoot() {
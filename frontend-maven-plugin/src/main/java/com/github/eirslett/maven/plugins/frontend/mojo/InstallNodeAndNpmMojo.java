@@ -2,6 +2,7 @@ package com.github.eirslett.maven.plugins.frontend.mojo;
 
 import com.github.eirslett.maven.plugins.frontend.lib.FrontendPluginFactory;
 import com.github.eirslett.maven.plugins.frontend.lib.InstallationException;
+import com.github.eirslett.maven.plugins.frontend.lib.NodeInstaller;
 import com.github.eirslett.maven.plugins.frontend.lib.NPMInstaller;
 import com.github.eirslett.maven.plugins.frontend.lib.ProxyConfig;
 
@@ -45,6 +46,21 @@ public final class InstallNodeAndNpmMojo extends AbstractFrontendMojo {
     @Parameter(property="nodeVersion", required = true)
     private String nodeVersion;
 
+    /**
+     * Number of concurrent connections used to download the Node.js archive. With more than one, the
+     * download is split into byte ranges, if the server supports ranged requests. Defaults to 1.
+     */
+    @Parameter(property = "nodeDownloadConnections", required = false, defaultValue = "1")
+    private int nodeDownloadConnections;
+
+    /**
+     * Extract Node.js once into a store next to the downloaded archives, and link its files into the
+     * install directory instead of extracting them for every project. Files are hard linked where possible,
+     * so they must not be modified in place. Defaults to false.
+     */
+    @Parameter(property = "useNodeInstallStore", required = false, defaultValue = "false")
+    private boolean useNodeInstallStore;
+
     /**
      * The version of NPM to install.
      */
@@ -79,37 +95,29 @@ public final class InstallNodeAndNpmMojo extends AbstractFrontendMojo {
         ProxyConfig proxyConfig = MojoUtils.getProxyConfig(session, decrypter);
         String nodeDownloadRoot = getNodeDownloadRoot();
         String npmDownloadRoot = getNpmDownloadRoot();
+        NodeInstaller nodeInstaller = factory.getNodeInstaller(proxyConfig)
+            .setNodeVersion(nodeVersion)
+            .setNodeDownloadRoot(nodeDownloadRoot)
+            .setDownloadConnections(nodeDownloadConnections)
+            .setUseInstallStore(useNodeInstallStore)
+            .setNpmVersion(npmVersion);
+        NPMInstaller npmInstaller = factory.getNPMInstaller(proxyConfig)
+            .setNodeVersion(nodeVersion)
+            .setNpmVersion(npmVersion)
+            .setNpmDownloadRoot(npmDownloadRoot);
         Server server = MojoUtils.decryptServer(serverId, session, decrypter);
         if (null != server) {
             Map<String, String> httpHeaders = getHttpHeaders(server);
-            factory.getNodeInstaller(proxyConfig)
-                .setNodeVersion(nodeVersion)
-                .setNodeDownloadRoot(nodeDownloadRoot)
-                .setNpmVersion(npmVersion)
+            nodeInstaller
                 .setUserName(server.getUsername())
                 .setPassword(server.getPassword())
-                .setHttpHeaders(httpHeaders)
-                .install();
-            factory.getNPMInstaller(proxyConfig)
-                .setNodeVersion(nodeVersion)
-                .setNpmVersion(npmVersion)
-                .setNpmDownloadRoot(npmDownloadRoot)
+                .setHttpHeaders(httpHeaders);
+            npmInstaller
                 .setUserName(server.getUsername())
                 .setPassword(server.getPassword())
-                .setHttpHeaders(httpHeaders)
-                .install();
-        } else {
-            factory.getNodeInstaller(proxyConfig)
-                .setNodeVersion(nodeVersion)
-                .setNodeDownloadRoot(nodeDownloadRoot)
-                .setNpmVersion(npmVersion)
-                .install();
-            factory.getNPMInstaller(proxyConfig)
-                .setNodeVersion(this.nodeVersion)
-                .setNpmVersion(this.npmVersion)
-                .setNpmDownloadRoot(npmDownloadRoot)
-                .install();
+                .setHttpHeaders(httpHeaders);
         }
+        MojoUtils.installNodeAndPackageManager(nodeInstaller::install, npmInstaller::download, npmInstaller::install);
     }
 
     private String getNodeDownloadRoot() {
@@ -2,6 +2,7 @@ package com.github.eirslett.maven.plugins.frontend.mojo;
 
 import com.github.eirslett.maven.plugins.frontend.lib.FrontendPluginFactory;
 import com.github.eirslett.maven.plugins.frontend.lib.InstallationException;
+import com.github.eirslett.maven.plugins.frontend.lib.NodeInstaller;
 import com.github.eirslett.maven.plugins.frontend.lib.PnpmInstaller;
 import com.github.eirslett.maven.plugins.frontend.lib.ProxyConfig;
 
@@ -45,6 +46,21 @@ public final class InstallNodeAndPnpmMojo extends AbstractFrontendMojo {
     @Parameter(property="nodeVersion", required = true)
     private String nodeVersion;
 
+    /**
+     * Number of concurrent connections used to download the Node.js archive. With more than one, the
+     * download is split into byte ranges, if the server supports ranged requests. Defaults to 1.
+     */
+    @Parameter(property = "nodeDownloadConnections", required = false, defaultValue = "1")
+    private int nodeDownloadConnections;
+
+    /**
+     * Extract Node.js once into a store next to the downloaded archives, and link its files into the
+     * install directory instead of extracting them for every project. Files are hard linked where possible,
+     * so they must not be modified in place. Defaults to false.
+     */
+    @Parameter(property = "useNodeInstallStore", required = false, defaultValue = "false")
+    private boolean useNodeInstallStore;
+
     /**
      * The version of pnpm to install. Note that the version string can optionally be prefixed with
      * 'v' (i.e., both 'v1.2.3' and '1.2.3' are valid).
@@ -85,33 +101,28 @@ public final class InstallNodeAndPnpmMojo extends AbstractFrontendMojo {
         // resolution.
         String resolvedNodeDownloadRoot = getNodeDownloadRoot();
         String resolvedPnpmDownloadRoot = getPnpmDownloadRoot();
+        NodeInstaller nodeInstaller = factory.getNodeInstaller(proxyConfig)
+            .setNodeVersion(nodeVersion)
+            .setNodeDownloadRoot(resolvedNodeDownloadRoot)
+            .setDownloadConnections(nodeDownloadConnections)
+            .setUseInstallStore(useNodeInstallStore);
+        PnpmInstaller pnpmInstaller = factory.getPnpmInstaller(proxyConfig)
+            .setPnpmVersion(pnpmVersion)
+            .setPnpmDownloadRoot(resolvedPnpmDownloadRoot);
         Server server = MojoUtils.decryptServer(serverId, session, decrypter);
         if (null != server) {
             Map<String, String> httpHeaders = getHttpHeaders(server);
-            factory.getNodeInstaller(proxyConfig)
-                .setNodeVersion(nodeVersion)
-                .setNodeDownloadRoot(resolvedNodeDownloadRoot)
+            nodeInstaller
                 .setUserName(server.getUsername())
                 .setPassword(server.getPassword())
-                .setHttpHeaders(httpHeaders)
-                .install();
-            factory.getPnpmInstaller(proxyConfig)
-                .setPnpmVersion(pnpmVersion)
-                .setPnpmDownloadRoot(resolvedPnpmDownloadRoot)
+                .setHttpHeaders(httpHeaders);
+            pnpmInstaller
                 .setUserName(server.getUsername())
                 .setPassword(server.getPassword())
-                .setHttpHeaders(httpHeaders)
-                .install();
-        } else {
-            factory.getNodeInstaller(proxyConfig)
-                .setNodeVersion(nodeVersion)
-                .setNodeDownloadRoot(resolvedNodeDownloadRoot)
-                .install();
-            factory.getPnpmInstaller(proxyConfig)
-                .setPnpmVersion(this.pnpmVersion)
-                .setPnpmDownloadRoot(resolvedPnpmDownloadRoot)
-                .install();
+                .setHttpHeaders(httpHeaders);
         }
+        MojoUtils.installNodeAndPackageManager(nodeInstaller::install, pnpmInstaller::download,
+            pnpmInstaller::install);
     }
 
     private String getNodeDownloadRoot() {
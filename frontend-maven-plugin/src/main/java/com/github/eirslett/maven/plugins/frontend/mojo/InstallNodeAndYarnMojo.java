@@ -13,6 +13,7 @@ import org.apache.maven.settings.crypto.SettingsDecrypter;
 
 import com.github.eirslett.maven.plugins.frontend.lib.FrontendPluginFactory;
 import com.github.eirslett.maven.plugins.frontend.lib.InstallationException;
+import com.github.eirslett.maven.plugins.frontend.lib.NodeInstaller;
 import com.github.eirslett.maven.plugins.frontend.lib.ProxyConfig;
 import com.github.eirslett.maven.plugins.frontend.lib.YarnInstaller;
 
@@ -41,6 +42,21 @@ public final class InstallNodeAndYarnMojo extends AbstractFrontendMojo {
     @Parameter(property = "nodeVersion", required = true)
     private String nodeVersion;
 
+    /**
+     * Number of concurrent connections used to download the Node.js archive. With more than one, the
+     * download is split into byte ranges, if the server supports ranged requests. Defaults to 1.
+     */
+    @Parameter(property = "nodeDownloadConnections", required = false, defaultValue = "1")
+    private int nodeDownloadConnections;
+
+    /**
+     * Extract Node.js once into a store next to the downloaded archives, and link its files into the
+     * install directory instead of extracting them for every project. Files are hard linked where possible,
+     * so they must not be modified in place. Defaults to false.
+     */
+    @Parameter(property = "useNodeInstallStore", required = false, defaultValue = "false")
+    private boolean useNodeInstallStore;
+
     /**
      * The version of Yarn to install. IMPORTANT! Most Yarn names start with 'v', for example 'v0.15.0'.
      */
@@ -77,21 +93,21 @@ public final class InstallNodeAndYarnMojo extends AbstractFrontendMojo {
 
         boolean isYarnYamlFilePresent = isYarnrcYamlFilePresent(this.session, this.workingDirectory);
 
+        NodeInstaller nodeInstaller = factory.getNodeInstaller(proxyConfig).setNodeDownloadRoot(this.nodeDownloadRoot)
+            .setDownloadConnections(this.nodeDownloadConnections)
+            .setUseInstallStore(this.useNodeInstallStore)
+            .setNodeVersion(this.nodeVersion);
+        YarnInstaller yarnInstaller = factory.getYarnInstaller(proxyConfig).setYarnDownloadRoot(this.yarnDownloadRoot)
+            .setYarnVersion(this.yarnVersion).setIsYarnBerry(isYarnYamlFilePresent);
         if (null != server) {
             Map<String, String> httpHeaders = getHttpHeaders(server);
-            factory.getNodeInstaller(proxyConfig).setNodeDownloadRoot(this.nodeDownloadRoot)
-                .setNodeVersion(this.nodeVersion).setUserName(server.getUsername())
-                .setPassword(server.getPassword()).setHttpHeaders(httpHeaders).install();
-            factory.getYarnInstaller(proxyConfig).setYarnDownloadRoot(this.yarnDownloadRoot)
-                .setYarnVersion(this.yarnVersion).setUserName(server.getUsername())
-                .setPassword(server.getPassword()).setHttpHeaders(httpHeaders)
-                .setIsYarnBerry(isYarnYamlFilePresent).install();
-        } else {
-            factory.getNodeInstaller(proxyConfig).setNodeDownloadRoot(this.nodeDownloadRoot)
-                .setNodeVersion(this.nodeVersion).install();
-            factory.getYarnInstaller(proxyConfig).setYarnDownloadRoot(this.yarnDownloadRoot)
-                .setYarnVersion(this.yarnVersion).setIsYarnBerry(isYarnYamlFilePresent).install();
+            nodeInstaller.setUserName(server.getUsername())
+                .setPassword(server.getPassword()).setHttpHeaders(httpHeaders);
+            yarnInstaller.setUserName(server.getUsername())
+                .setPassword(server.getPassword()).setHttpHeaders(httpHeaders);
         }
+        MojoUtils.installNodeAndPackageManager(nodeInstaller::install, yarnInstaller::download,
+            yarnInstaller::install);
     }
 
 }
@@ -1,8 +1,15 @@
 package com.github.eirslett.maven.plugins.frontend.mojo;
 
+import com.github.eirslett.maven.plugins.frontend.lib.BuildMetrics;
+import com.github.eirslett.maven.plugins.frontend.lib.FrontendPluginFactory;
+import com.github.eirslett.maven.plugins.frontend.lib.InstallationException;
+import com.github.eirslett.maven.plugins.frontend.lib.Metrics;
 import com.github.eirslett.maven.plugins.frontend.lib.ProxyConfig;
+import com.github.eirslett.maven.plugins.frontend.lib.TaskOutputCache;
+import com.github.eirslett.maven.plugins.frontend.lib.UpToDateCheck;
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.project.MavenProject;
 import org.apache.maven.settings.Proxy;
 import org.apache.maven.settings.Server;
 import org.apache.maven.settings.crypto.DefaultSettingsDecryptionRequest;
@@ -10,6 +17,7 @@ import org.apache.maven.settings.crypto.SettingsDecrypter;
 import org.apache.maven.settings.crypto.SettingsDecryptionResult;
 import org.codehaus.plexus.util.Scanner;
 import org.codehaus.plexus.util.StringUtils;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonatype.plexus.build.incremental.BuildContext;
@@ -17,7 +25,13 @@ import org.sonatype.plexus.build.incremental.BuildContext;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 class MojoUtils {
 
@@ -77,6 +91,31 @@ class MojoUtils {
         }
     }
 
+    /**
+     * Provides the HTTP headers configured for the &lt;server&gt; entry in the settings.xml.
+     */
+    static Map<String, String> getHttpHeaders(Server server) {
+        if (server == null || !(server.getConfiguration() instanceof Xpp3Dom)) {
+            return Collections.emptyMap();
+        }
+        
+        Xpp3Dom configuration = (Xpp3Dom) server.getConfiguration();
+        
+        Map<String, String> result = new HashMap<>();
+
+        Xpp3Dom httpHeaders = configuration.getChild("httpHeaders");
+        if (httpHeaders != null) {
+            for (Xpp3Dom property : httpHeaders.getChildren("property")) {
+                Xpp3Dom name = property.getChild("name");
+                Xpp3Dom value = property.getChild("value");
+                if (name != null && value != null) {
+                    result.put(name.getValue(), value.getValue());
+                }
+            }
+        }
+        return result;
+    }
+
     static boolean shouldExecute(BuildContext buildContext, List<File> triggerfiles, File srcdir) {
 
     // If there is no buildContext, or this is not an incremental build, always execute.
@@ -102,4 +141,153 @@ class MojoUtils {
     String[] includedFiles = scanner.getIncludedFiles();
     return (includedFiles != null && includedFiles.length > 0);
   }
+
+    /**
+     * Also skips tasks outside of incremental builds, if the up-to-date check finds no changes since the
+     * last successful run and the output directory is still there.
+     */
+    static boolean shouldExecute(BuildContext buildContext, List<File> triggerfiles, File srcdir, File outputdir,
+            UpToDateCheck upToDateCheck) {
+        if (upToDateCheck == null || (buildContext != null && buildContext.isIncremental())) {
+            return shouldExecute(buildContext, triggerfiles, srcdir);
+        }
+        // always take the snapshot, it's recorded after the task ran
+        boolean upToDate = upToDateCheck.isUpToDate();
+        return !upToDate || (outputdir != null && !outputdir.exists());
+    }
+
+    /**
+     * Provides the metrics of the module, which are reported in target/frontend-maven-plugin/metrics.json of
+     * the top level project at the end of the Maven session.
+     *
+     * @param mavenSession the session whose metrics are collected, in one report for all modules
+     * @param project the module to record the metrics for
+     * @return the metrics of the module, which the executions of all its goals add to
+     */
+    static Metrics getMetrics(MavenSession mavenSession, MavenProject project) {
+        File reportFile = new File(mavenSession.getTopLevelProject().getBuild().getDirectory(),
+                "frontend-maven-plugin/metrics.json");
+        return SessionResources.get(mavenSession, BuildMetrics.class, () -> new BuildMetrics(reportFile))
+                .forModule(project.getGroupId() + ":" + project.getArtifactId());
+    }
+
+    /**
+     * @return the check whether the inputs of the task changed since its last run, or null if the task
+     *         isn't incremental; the check needs to know the source directory
+     */
+    static UpToDateCheck getUpToDateCheck(String task, boolean incremental, boolean compareContent, File stateFile,
+            File srcdir, List<File> triggerfiles, String arguments, Map<String, String> environmentVariables) {
+        if (!incremental) {
+            return null;
+        }
+        if (srcdir == null) {
+            LOGGER.warn("Not checking whether {} is up to date, as srcdir is not set", task);
+            return null;
+        }
+        UpToDateCheck upToDateCheck = new UpToDateCheck(stateFile, compareContent)
+            .addInputFile(srcdir)
+            .addInput("arguments", arguments)
+            .addInputs("environment", environmentVariables);
+        for (File triggerfile : triggerfiles) {
+            upToDateCheck.addInputFile(triggerfile);
+        }
+        return upToDateCheck;
+    }
+
+    /**
+     * @return the cache for the output of the task, with the given inputs, or null if the task cache isn't
+     *         used; it needs to know both the source and the output directory
+     */
+    static TaskOutputCache getTaskOutputCache(FrontendPluginFactory factory, String task, boolean useTaskCache,
+            File srcdir, List<File> triggerfiles, File outputdir, String arguments,
+            Map<String, String> environmentVariables, List<String> taskCacheEnvironmentVariables) {
+        if (!useTaskCache) {
+            return null;
+        }
+        if (srcdir == null || outputdir == null) {
+            LOGGER.warn("Not using the task cache for {}, as srcdir or outputdir is not set", task);
+            return null;
+        }
+        TaskOutputCache cache = factory.getTaskOutputCache(task)
+            .addInputFile(srcdir)
+            .addInput("arguments", String.valueOf(arguments))
+            .addInputs("environment", environmentVariables);
+        for (File triggerfile : triggerfiles) {
+            cache.addInputFile(triggerfile);
+        }
+        if (taskCacheEnvironmentVariables != null) {
+            for (String name : taskCacheEnvironmentVariables) {
+                cache.addInput("env." + name, String.valueOf(System.getenv(name)));
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * @return the cache for the node_modules folder written by the install command of the package manager, or
+     *         null if it isn't used; it is only used for install commands, in projects with one of the lockfiles
+     */
+    static TaskOutputCache getNodeModulesCache(FrontendPluginFactory factory, String packageManager,
+            boolean useNodeModulesCache, List<String> installCommands, List<String> lockfiles,
+            File packageManagerFile, File workingDirectory, String arguments, Map<String, String> environmentVariables) {
+        if (!useNodeModulesCache) {
+            return null;
+        }
+        String command = arguments == null ? "" : arguments.trim().split("\\s+")[0];
+        if (!installCommands.contains(command)) {
+            return null;
+        }
+        boolean locked = false;
+        for (String lockfile : lockfiles) {
+            locked |= new File(workingDirectory, lockfile).isFile();
+        }
+        if (!locked) {
+            LOGGER.warn("Not using the node_modules cache, as there is no {} in {}", String.join(" or ", lockfiles),
+                workingDirectory);
+            return null;
+        }
+        return factory.getTaskOutputCache(packageManager + "-node-modules")
+            .addInputFile(packageManagerFile)
+            .addInput("arguments", arguments)
+            .addInputs("environment", environmentVariables);
+    }
+
+    interface Installation {
+        void run() throws InstallationException;
+    }
+
+    /**
+     * Installs Node.js while the package manager is downloaded on another thread, as that download doesn't
+     * depend on Node.js. The package manager is installed from the download once Node.js is in place.
+     */
+    static void installNodeAndPackageManager(Installation nodeInstall, Installation packageManagerDownload,
+            Installation packageManagerInstall) throws InstallationException {
+        ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "frontend-download");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            Future<?> download = executor.submit(() -> {
+                packageManagerDownload.run();
+                return null;
+            });
+            try {
+                nodeInstall.run();
+            } finally {
+                // the download holds a lock on the file in the cache, so it has to finish either way
+                try {
+                    download.get();
+                } catch (ExecutionException e) {
+                    // installing downloads again, and reports the error if it happens again
+                    LOGGER.debug("Could not download the package manager", e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+        packageManagerInstall.run();
+    }
 }
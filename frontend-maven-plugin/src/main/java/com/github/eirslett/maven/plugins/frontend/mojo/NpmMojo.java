@@ -2,6 +2,7 @@ package com.github.eirslett.maven.plugins.frontend.mojo;
 
 import com.github.eirslett.maven.plugins.frontend.lib.FrontendPluginFactory;
 import com.github.eirslett.maven.plugins.frontend.lib.ProxyConfig;
+import com.github.eirslett.maven.plugins.frontend.lib.TaskOutputCache;
 import com.github.eirslett.maven.plugins.frontend.lib.TaskRunnerException;
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugins.annotations.Component;
@@ -12,12 +13,18 @@ import org.apache.maven.settings.crypto.SettingsDecrypter;
 import org.sonatype.plexus.build.incremental.BuildContext;
 
 import java.io.File;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 
 @Mojo(name="npm",  defaultPhase = LifecyclePhase.GENERATE_RESOURCES, threadSafe = true)
 public final class NpmMojo extends AbstractFrontendMojo {
 
     private static final String NPM_REGISTRY_URL = "npmRegistryURL";
+
+    private static final List<String> INSTALL_COMMANDS = Arrays.asList("install", "i", "ci");
+
+    private static final List<String> LOCKFILES = Arrays.asList("package-lock.json", "npm-shrinkwrap.json");
     
     /**
      * npm arguments. Default is "install".
@@ -43,6 +50,15 @@ public final class NpmMojo extends AbstractFrontendMojo {
     @Component(role = SettingsDecrypter.class)
     private SettingsDecrypter decrypter;
 
+    /**
+     * Restore node_modules from a snapshot in the local repository instead of running npm, if npm already
+     * installed the same lockfile with the same arguments, Node.js and npm version. A snapshot is stored
+     * after every install that didn't match one. Only used for install commands, in projects with
+     * a package-lock.json or npm-shrinkwrap.json.
+     */
+    @Parameter(property = "frontend.nodeModulesCache", required = false, defaultValue = "false")
+    private boolean useNodeModulesCache;
+
     /**
      * Skips execution of this mojo.
      */
@@ -58,8 +74,17 @@ public final class NpmMojo extends AbstractFrontendMojo {
     public synchronized void execute(FrontendPluginFactory factory) throws TaskRunnerException {
         File packageJson = new File(workingDirectory, "package.json");
         if (buildContext == null || buildContext.hasDelta(packageJson) || !buildContext.isIncremental()) {
-            ProxyConfig proxyConfig = getProxyConfig();
-            factory.getNpmRunner(proxyConfig, getRegistryUrl()).execute(arguments, environmentVariables);
+            File nodeModules = new File(workingDirectory, "node_modules");
+            TaskOutputCache nodeModulesCache = MojoUtils.getNodeModulesCache(factory, "npm", useNodeModulesCache,
+                INSTALL_COMMANDS, LOCKFILES, new File(installDirectory, "node/node_modules/npm/package.json"),
+                workingDirectory, arguments, environmentVariables);
+            if (nodeModulesCache == null || !nodeModulesCache.restore(nodeModules, true)) {
+                ProxyConfig proxyConfig = getProxyConfig();
+                factory.getNpmRunner(proxyConfig, getRegistryUrl()).execute(arguments, environmentVariables);
+                if (nodeModulesCache != null) {
+                    nodeModulesCache.store(nodeModules);
+                }
+            }
         } else {
             getLog().info("Skipping npm install as package.json unchanged");
         }
@@ -2,6 +2,7 @@ package com.github.eirslett.maven.plugins.frontend.mojo;
 
 import com.github.eirslett.maven.plugins.frontend.lib.FrontendPluginFactory;
 import com.github.eirslett.maven.plugins.frontend.lib.ProxyConfig;
+import com.github.eirslett.maven.plugins.frontend.lib.TaskOutputCache;
 import com.github.eirslett.maven.plugins.frontend.lib.TaskRunnerException;
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugins.annotations.Component;
@@ -12,13 +13,19 @@ import org.apache.maven.settings.crypto.SettingsDecrypter;
 import org.sonatype.plexus.build.incremental.BuildContext;
 
 import java.io.File;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 
 @Mojo(name="pnpm",  defaultPhase = LifecyclePhase.GENERATE_RESOURCES, threadSafe = true)
 public final class PnpmMojo extends AbstractFrontendMojo {
 
     private static final String PNPM_REGISTRY_URL = "npmRegistryURL";
 
+    private static final List<String> INSTALL_COMMANDS = Arrays.asList("install", "i");
+
+    private static final List<String> LOCKFILES = Arrays.asList("pnpm-lock.yaml");
+
     /**
      * pnpm arguments. Default is "install".
      */
@@ -43,6 +50,15 @@ public final class PnpmMojo extends AbstractFrontendMojo {
     @Component(role = SettingsDecrypter.class)
     private SettingsDecrypter decrypter;
 
+    /**
+     * Restore node_modules from a snapshot in the local repository instead of running pnpm, if pnpm already
+     * installed the same lockfile with the same arguments, Node.js and pnpm version. A snapshot is stored
+     * after every install that didn't match one. Only used for install commands, in projects with
+     * a pnpm-lock.yaml.
+     */
+    @Parameter(property = "frontend.nodeModulesCache", required = false, defaultValue = "false")
+    private boolean useNodeModulesCache;
+
     /**
      * Skips execution of this mojo.
      */
@@ -58,8 +74,17 @@ public final class PnpmMojo extends AbstractFrontendMojo {
     public synchronized void execute(FrontendPluginFactory factory) throws TaskRunnerException {
         File packageJson = new File(workingDirectory, "package.json");
         if (buildContext == null || buildContext.hasDelta(packageJson) || !buildContext.isIncremental()) {
-            ProxyConfig proxyConfig = getProxyConfig();
-            factory.getPnpmRunner(proxyConfig, getRegistryUrl()).execute(arguments, environmentVariables);
+            File nodeModules = new File(workingDirectory, "node_modules");
+            TaskOutputCache nodeModulesCache = MojoUtils.getNodeModulesCache(factory, "pnpm", useNodeModulesCache,
+                INSTALL_COMMANDS, LOCKFILES, new File(installDirectory, "node/node_modules/pnpm/package.json"),
+                workingDirectory, arguments, environmentVariables);
+            if (nodeModulesCache == null || !nodeModulesCache.restore(nodeModules, true)) {
+                ProxyConfig proxyConfig = getProxyConfig();
+                factory.getPnpmRunner(proxyConfig, getRegistryUrl()).execute(arguments, environmentVariables);
+                if (nodeModulesCache != null) {
+                    nodeModulesCache.store(nodeModules);
+                }
+            }
         } else {
             getLog().info("Skipping pnpm install as package.json unchanged");
         }
@@ -0,0 +1,379 @@
+package com.github.eirslett.maven.plugins.frontend.mojo;
+
+import java.io.Closeable;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.apache.maven.AbstractMavenLifecycleParticipant;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.PluginExecution;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.settings.Server;
+import org.apache.maven.settings.crypto.SettingsDecrypter;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.eirslett.maven.plugins.frontend.lib.CorepackInstaller;
+import com.github.eirslett.maven.plugins.frontend.lib.FrontendPluginFactory;
+import com.github.eirslett.maven.plugins.frontend.lib.HttpClientCache;
+import com.github.eirslett.maven.plugins.frontend.lib.InstallationException;
+import com.github.eirslett.maven.plugins.frontend.lib.NPMInstaller;
+import com.github.eirslett.maven.plugins.frontend.lib.NodeInstaller;
+import com.github.eirslett.maven.plugins.frontend.lib.PnpmInstaller;
+import com.github.eirslett.maven.plugins.frontend.lib.ProxyConfig;
+import com.github.eirslett.maven.plugins.frontend.lib.YarnInstaller;
+
+/**
+ * Starts downloading the Node.js, package manager and Bun archives that the install goals of the reactor
+ * will need as soon as the projects are read, so the downloads overlap with the modules that are built
+ * before. The install goals then find the archives in the cache, or wait for the download in progress.
+ * <p>
+ * Maven only runs this if the plugin is declared with {@code <extensions>true</extensions>}. It can be turned
+ * off with {@code -Dfrontend.prefetch=false}, and doesn't run in offline builds.
+ */
+@Named("frontend-prefetch")
+@Singleton
+public class PrefetchLifecycleParticipant extends AbstractMavenLifecycleParticipant {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PrefetchLifecycleParticipant.class);
+
+    private static final String PLUGIN_KEY = "com.github.eirslett:frontend-maven-plugin";
+
+    // the install goals, with the property their skip parameter reads
+    private static final Map<String, String> INSTALL_GOALS = new LinkedHashMap<>();
+
+    static {
+        INSTALL_GOALS.put("install-node-and-npm", "skip.installnodenpm");
+        INSTALL_GOALS.put("install-node-and-pnpm", "skip.installnodepnpm");
+        INSTALL_GOALS.put("install-node-and-yarn", "skip.installyarn");
+        INSTALL_GOALS.put("install-node-and-corepack", "skip.installnodecorepack");
+        INSTALL_GOALS.put("install-bun", "skip.installbun");
+    }
+
+    private static final Pattern EXPRESSION = Pattern.compile("\\$\\{([^}]+)}");
+
+    private static final int THREADS = 4;
+
+    private final SettingsDecrypter decrypter;
+
+    @Inject
+    public PrefetchLifecycleParticipant(SettingsDecrypter decrypter) {
+        this.decrypter = decrypter;
+    }
+
+    @Override
+    public void afterProjectsRead(MavenSession session) {
+        if (session.isOffline() || "false".equals(getProperty(session, null, "frontend.prefetch"))) {
+            return;
+        }
+        Map<String, Download> downloads = new LinkedHashMap<>();
+        for (MavenProject project : session.getProjects()) {
+            Plugin plugin = project.getPlugin(PLUGIN_KEY);
+            if (plugin == null) {
+                continue;
+            }
+            for (PluginExecution execution : plugin.getExecutions()) {
+                // the configuration of the plugin is already merged into the one of the execution
+                Xpp3Dom configuration = (Xpp3Dom) execution.getConfiguration();
+                if (configuration == null) {
+                    configuration = new Xpp3Dom("configuration");
+                }
+                List<String> goals = new ArrayList<>();
+                for (String goal : execution.getGoals()) {
+                    if (INSTALL_GOALS.containsKey(goal) && !isSkipped(session, project, configuration, goal)) {
+                        goals.add(goal);
+                    }
+                }
+                if (!goals.isEmpty()) {
+                    addDownloads(downloads, session, project, goals, configuration);
+                }
+            }
+        }
+        if (downloads.isEmpty()) {
+            return;
+        }
+        LOGGER.info("Downloading {} archive(s) for the frontend-maven-plugin in the background", downloads.size());
+        // registered before the HTTP clients, so the downloads are stopped before the clients are closed
+        Prefetch prefetch = SessionResources.get(session, Prefetch.class, Prefetch::new);
+        HttpClientCache httpClientCache = SessionResources.get(session, HttpClientCache.class, HttpClientCache::new);
+        ProxyConfig proxyConfig = MojoUtils.getProxyConfig(session, this.decrypter);
+        for (Download download : downloads.values()) {
+            Server server = MojoUtils.decryptServer(download.serverId, session, this.decrypter);
+            prefetch.submit(download, session, server, httpClientCache, proxyConfig);
+        }
+    }
+
+    private void addDownloads(Map<String, Download> downloads, MavenSession session, MavenProject project,
+            List<String> goals, Xpp3Dom configuration) {
+        String workingDirectory = getParameter(session, project, configuration, "workingDirectory", "${basedir}");
+        String installDirectory = getParameter(session, project, configuration, "installDirectory", workingDirectory);
+        if (installDirectory == null) {
+            return;
+        }
+        File directory = new File(installDirectory);
+        if (!directory.isAbsolute()) {
+            directory = new File(project.getBasedir(), installDirectory);
+        }
+        Download download = new Download(directory, getParameter(session, project, configuration, "serverId", ""),
+            project);
+        String downloadRoot = getParameter(session, project, configuration, "downloadRoot", "");
+        boolean useDownloadRoot = downloadRoot != null && !downloadRoot.isEmpty();
+
+        if (goals.contains("install-bun")) {
+            download.bunVersion = getParameter(session, project, configuration, "bunVersion", null);
+            download.bunDownloadRoot = getParameter(session, project, configuration, "bunDownloadRoot", null);
+        } else {
+            download.nodeVersion = getParameter(session, project, configuration, "nodeVersion", null);
+            download.nodeDownloadRoot = getParameter(session, project, configuration, "nodeDownloadRoot",
+                useDownloadRoot ? downloadRoot : null);
+        }
+        if (goals.contains("install-node-and-npm")) {
+            download.tool = "npm";
+            download.version = getParameter(session, project, configuration, "npmVersion", "provided");
+            download.downloadRoot = getParameter(session, project, configuration, "npmDownloadRoot",
+                useDownloadRoot ? downloadRoot : NPMInstaller.DEFAULT_NPM_DOWNLOAD_ROOT);
+        } else if (goals.contains("install-node-and-pnpm")) {
+            download.tool = "pnpm";
+            download.version = getParameter(session, project, configuration, "pnpmVersion", null);
+            download.downloadRoot = getParameter(session, project, configuration, "pnpmDownloadRoot",
+                useDownloadRoot ? downloadRoot : PnpmInstaller.DEFAULT_PNPM_DOWNLOAD_ROOT);
+        } else if (goals.contains("install-node-and-yarn")) {
+            download.tool = "yarn";
+            download.version = getParameter(session, project, configuration, "yarnVersion", null);
+            download.downloadRoot = getParameter(session, project, configuration, "yarnDownloadRoot",
+                YarnInstaller.DEFAULT_YARN_DOWNLOAD_ROOT);
+        } else if (goals.contains("install-node-and-corepack")) {
+            download.tool = "corepack";
+            download.version = getParameter(session, project, configuration, "corepackVersion", "provided");
+            download.downloadRoot = getParameter(session, project, configuration, "corepackDownloadRoot",
+                CorepackInstaller.DEFAULT_COREPACK_DOWNLOAD_ROOT);
+        }
+        downloads.putIfAbsent(download.getKey(), download);
+    }
+
+    /**
+     * Reads the {@code skip} parameter of the goal, like its mojo does. A value that can't be resolved here
+     * counts as false, so the archives are downloaded anyway.
+     */
+    private static boolean isSkipped(MavenSession session, MavenProject project, Xpp3Dom configuration, String goal) {
+        return Boolean.parseBoolean(
+            getParameter(session, project, configuration, "skip", INSTALL_GOALS.get(goal), "false"));
+    }
+
+    private static String getParameter(MavenSession session, MavenProject project, Xpp3Dom configuration,
+            String name, String defaultValue) {
+        return getParameter(session, project, configuration, name, name, defaultValue);
+    }
+
+    /**
+     * Reads a parameter like Maven does for the goal: from the configuration, or else from its property.
+     * Expressions are resolved from the properties and the basic project paths only.
+     *
+     * @return null if the value has an expression that can't be resolved here
+     */
+    private static String getParameter(MavenSession session, MavenProject project, Xpp3Dom configuration,
+            String name, String property, String defaultValue) {
+        Xpp3Dom child = configuration.getChild(name);
+        String value = child != null ? child.getValue() : getProperty(session, project, property);
+        if (value == null) {
+            value = defaultValue;
+        }
+        if (value == null) {
+            return null;
+        }
+        StringBuffer result = new StringBuffer();
+        Matcher expression = EXPRESSION.matcher(value);
+        while (expression.find()) {
+            String resolved = resolve(session, project, expression.group(1));
+            if (resolved == null) {
+                return null;
+            }
+            expression.appendReplacement(result, Matcher.quoteReplacement(resolved));
+        }
+        expression.appendTail(result);
+        return result.toString();
+    }
+
+    private static String resolve(MavenSession session, MavenProject project, String expression) {
+        switch (expression) {
+            case "basedir":
+            case "project.basedir":
+                return project.getBasedir().getPath();
+            case "project.build.directory":
+                return project.getBuild().getDirectory();
+            default:
+                return getProperty(session, project, expression);
+        }
+    }
+
+    private static String getProperty(MavenSession session, MavenProject project, String name) {
+        String value = session.getUserProperties().getProperty(name);
+        if (value == null && project != null) {
+            value = project.getProperties().getProperty(name);
+        }
+        if (value == null) {
+            value = session.getSystemProperties().getProperty(name);
+        }
+        return value;
+    }
+
+    /**
+     * What one install goal is going to download.
+     */
+    private static final class Download {
+
+        private final File installDirectory;
+
+        private final String serverId;
+
+        private final MavenProject project;
+
+        private String nodeVersion, nodeDownloadRoot, bunVersion, bunDownloadRoot;
+
+        private String tool, version, downloadRoot;
+
+        /**
+         * @param project the first project that needs the download, whose metrics it is recorded in
+         */
+        Download(File installDirectory, String serverId, MavenProject project) {
+            this.installDirectory = installDirectory;
+            this.serverId = serverId;
+            this.project = project;
+        }
+
+        String getKey() {
+            return String.join("|", this.installDirectory.getAbsolutePath(), String.valueOf(this.nodeVersion),
+                String.valueOf(this.bunVersion), String.valueOf(this.tool), String.valueOf(this.version));
+        }
+
+        void run(FrontendPluginFactory factory, ProxyConfig proxyConfig, Server server)
+                throws InstallationException {
+            Map<String, String> httpHeaders = MojoUtils.getHttpHeaders(server);
+            String userName = server != null ? server.getUsername() : null;
+            String password = server != null ? server.getPassword() : null;
+            if (this.nodeVersion != null) {
+                NodeInstaller nodeInstaller = factory.getNodeInstaller(proxyConfig)
+                    .setNodeVersion(this.nodeVersion)
+                    .setNodeDownloadRoot(this.nodeDownloadRoot)
+                    .setUserName(userName)
+                    .setPassword(password)
+                    .setHttpHeaders(httpHeaders);
+                if ("npm".equals(this.tool)) {
+                    nodeInstaller.setNpmVersion(this.version);
+                } else if ("corepack".equals(this.tool) && "provided".equals(this.version)) {
+                    // like the install goal, which takes corepack from the Node.js archive then
+                    nodeInstaller.setNpmVersion("provided");
+                }
+                nodeInstaller.download();
+            }
+            if (this.bunVersion != null) {
+                factory.getBunInstaller(proxyConfig)
+                    .setBunVersion(this.bunVersion)
+                    .setBunDownloadRoot(this.bunDownloadRoot)
+                    .setUserName(userName)
+                    .setPassword(password)
+                    .setHttpHeaders(httpHeaders)
+                    .download();
+            }
+            if (this.tool == null || this.version == null || this.downloadRoot == null) {
+                return;
+            }
+            switch (this.tool) {
+                case "npm":
+                    factory.getNPMInstaller(proxyConfig)
+                        .setNodeVersion(this.nodeVersion)
+                        .setNpmVersion(this.version)
+                        .setNpmDownloadRoot(this.downloadRoot)
+                        .setUserName(userName)
+                        .setPassword(password)
+                        .setHttpHeaders(httpHeaders)
+                        .download();
+                    break;
+                case "pnpm":
+                    factory.getPnpmInstaller(proxyConfig)
+                        .setPnpmVersion(this.version)
+                        .setPnpmDownloadRoot(this.downloadRoot)
+                        .setUserName(userName)
+                        .setPassword(password)
+                        .setHttpHeaders(httpHeaders)
+                        .download();
+                    break;
+                case "yarn":
+                    factory.getYarnInstaller(proxyConfig)
+                        .setYarnVersion(this.version)
+                        .setYarnDownloadRoot(this.downloadRoot)
+                        .setUserName(userName)
+                        .setPassword(password)
+                        .setHttpHeaders(httpHeaders)
+                        .download();
+                    break;
+                case "corepack":
+                    factory.getCorepackInstaller(proxyConfig)
+                        .setCorepackVersion(this.version)
+                        .setCorepackDownloadRoot(this.downloadRoot)
+                        .setUserName(userName)
+                        .setPassword(password)
+                        .setHttpHeaders(httpHeaders)
+                        .download();
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return this.tool != null ? "Node.js " + this.nodeVersion + " and " + this.tool + " " + this.version
+                : this.bunVersion != null ? "Bun " + this.bunVersion : "Node.js " + this.nodeVersion;
+        }
+    }
+
+    /**
+     * The threads downloading in the background, which are stopped when the session ends.
+     */
+    private static final class Prefetch implements Closeable {
+
+        private final AtomicInteger threads = new AtomicInteger();
+
+        private final ExecutorService executor = Executors.newFixedThreadPool(THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "frontend-prefetch-" + this.threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        void submit(Download download, MavenSession session, Server server, HttpClientCache httpClientCache,
+                ProxyConfig proxyConfig) {
+            FrontendPluginFactory factory = new FrontendPluginFactory(download.installDirectory,
+                download.installDirectory, new RepositoryCacheResolver(session.getRepositorySession()))
+                .withHttpClientCache(httpClientCache)
+                .withMetrics(MojoUtils.getMetrics(session, download.project));
+            this.executor.execute(() -> {
+                try {
+                    download.run(factory, proxyConfig, server);
+                } catch (InstallationException | RuntimeException e) {
+                    // the install goal downloads again, and reports the error if it happens again
+                    LOGGER.debug("Could not download {} ahead of the build", download, e);
+                }
+            });
+        }
+
+        @Override
+        public void close() {
+            this.executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.github.eirslett.maven.plugins.frontend.mojo;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+import org.apache.maven.execution.ExecutionEvent;
+import org.apache.maven.execution.ExecutionListener;
+import org.apache.maven.execution.MavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
+import org.eclipse.aether.SessionData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Resources shared by all executions of the plugin within one Maven session, across all modules of the
+ * reactor. They are kept in the session data of the repository session and closed when the session ends.
+ */
+final class SessionResources implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SessionResources.class);
+
+    // the classes of the plugin are loaded once for the goals and once more for its build extension, and
+    // each copy keeps its own resources
+    private static final String KEY = SessionResources.class.getName() + "@"
+        + Integer.toHexString(System.identityHashCode(SessionResources.class.getClassLoader()));
+
+    // the resources of both copies, in a list whose class is shared by them
+    private static final String ALL_KEY = SessionResources.class.getName() + ".all";
+
+    private final Map<Class<?>, Closeable> resources = new LinkedHashMap<>();
+
+    private boolean closed;
+
+    private SessionResources() {
+    }
+
+    /**
+     * Returns the session's instance of the given type, creating it on first use.
+     */
+    static <T extends Closeable> T get(MavenSession session, Class<T> type, Supplier<T> factory) {
+        return forSession(session).get(type, factory);
+    }
+
+    private static SessionResources forSession(MavenSession session) {
+        // the request is shared by the session clones of a multi-threaded build
+        MavenExecutionRequest request = session.getRequest();
+        synchronized (request) {
+            SessionData data = session.getRepositorySession().getData();
+            SessionResources resources = (SessionResources) data.get(KEY);
+            if (resources == null) {
+                resources = new SessionResources();
+                data.set(KEY, resources);
+                getAll(session, data).add(resources);
+            }
+            return resources;
+        }
+    }
+
+    /**
+     * Closes the resources of the session, in the order they were created.
+     */
+    private static void closeAll(MavenSession session) {
+        List<Closeable> all;
+        synchronized (session.getRequest()) {
+            all = new ArrayList<>(getAll(session, session.getRepositorySession().getData()));
+        }
+        for (Closeable resources : all) {
+            try {
+                resources.close();
+            } catch (IOException e) {
+                LOGGER.warn("Could not close {}: {}", resources, e.getMessage());
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Closeable> getAll(MavenSession session, SessionData data) {
+        List<Closeable> all = (List<Closeable>) data.get(ALL_KEY);
+        if (all == null) {
+            all = new CopyOnWriteArrayList<>();
+            data.set(ALL_KEY, all);
+            closeOnSessionEnd(session.getRequest());
+        }
+        return all;
+    }
+
+    /**
+     * Installs a listener that closes the resources when the session ends. Plugins don't get notified about
+     * that otherwise, as lifecycle participants only run if the plugin is declared as an extension. The listener
+     * is a proxy, so it forwards all events of whatever version of Maven runs it to the one installed before.
+     */
+    private static void closeOnSessionEnd(MavenExecutionRequest request) {
+        ExecutionListener delegate = request.getExecutionListener();
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                // equals, hashCode and toString of the proxy itself
+                return method.getName().equals("equals") ? proxy == args[0]
+                    : method.getName().equals("hashCode") ? System.identityHashCode(proxy)
+                    : "session end listener of the frontend-maven-plugin, forwarding to " + delegate;
+            }
+            try {
+                return delegate != null ? method.invoke(delegate, args) : null;
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            } finally {
+                if (method.getName().equals("sessionEnded")) {
+                    closeAll(((ExecutionEvent) args[0]).getSession());
+                }
+            }
+        };
+        request.setExecutionListener((ExecutionListener) Proxy.newProxyInstance(
+            ExecutionListener.class.getClassLoader(), new Class<?>[] {ExecutionListener.class}, handler));
+    }
+
+    private synchronized <T extends Closeable> T get(Class<T> type, Supplier<T> factory) {
+        if (closed) {
+            throw new IllegalStateException("The Maven session has already ended");
+        }
+        Closeable resource = resources.get(type);
+        if (resource == null) {
+            resource = factory.get();
+            resources.put(type, resource);
+        }
+        return type.cast(resource);
+    }
+
+    @Override
+    public void close() {
+        List<Closeable> toClose;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            toClose = new ArrayList<>(resources.values());
+            resources.clear();
+        }
+        for (Closeable resource : toClose) {
+            try {
+                resource.close();
+            } catch (IOException | RuntimeException e) {
+                LOGGER.warn("Could not close {}: {}", resource, e.getMessage());
+            }
+        }
+    }
+}
@@ -3,7 +3,9 @@ package com.github.eirslett.maven.plugins.frontend.mojo;
 import static com.github.eirslett.maven.plugins.frontend.mojo.YarnUtils.isYarnrcYamlFilePresent;
 
 import java.io.File;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugins.annotations.Component;
@@ -15,6 +17,7 @@ import org.sonatype.plexus.build.incremental.BuildContext;
 
 import com.github.eirslett.maven.plugins.frontend.lib.FrontendPluginFactory;
 import com.github.eirslett.maven.plugins.frontend.lib.ProxyConfig;
+import com.github.eirslett.maven.plugins.frontend.lib.TaskOutputCache;
 import com.github.eirslett.maven.plugins.frontend.lib.TaskRunnerException;
 
 @Mojo(name = "yarn", defaultPhase = LifecyclePhase.GENERATE_RESOURCES, threadSafe = true)
@@ -22,6 +25,10 @@ public final class YarnMojo extends AbstractFrontendMojo {
 
     private static final String NPM_REGISTRY_URL = "npmRegistryURL";
 
+    private static final List<String> INSTALL_COMMANDS = Arrays.asList("", "install");
+
+    private static final List<String> LOCKFILES = Arrays.asList("yarn.lock");
+
     /**
      * npm arguments. Default is "install".
      */
@@ -47,6 +54,15 @@ public final class YarnMojo extends AbstractFrontendMojo {
     @Component(role = SettingsDecrypter.class)
     private SettingsDecrypter decrypter;
 
+    /**
+     * Restore node_modules from a snapshot in the local repository instead of running yarn, if yarn already
+     * installed the same lockfile with the same arguments, Node.js and yarn version. A snapshot is stored
+     * after every install that didn't match one. Only used for install commands, in projects with
+     * a yarn.lock.
+     */
+    @Parameter(property = "frontend.nodeModulesCache", required = false, defaultValue = "false")
+    private boolean useNodeModulesCache;
+
     /**
      * Skips execution of this mojo.
      */
@@ -63,10 +79,24 @@ public final class YarnMojo extends AbstractFrontendMojo {
         File packageJson = new File(this.workingDirectory, "package.json");
         if (this.buildContext == null || this.buildContext.hasDelta(packageJson)
             || !this.buildContext.isIncremental()) {
-            ProxyConfig proxyConfig = getProxyConfig();
-            boolean isYarnBerry = isYarnrcYamlFilePresent(this.session, this.workingDirectory);
-            factory.getYarnRunner(proxyConfig, getRegistryUrl(), isYarnBerry).execute(this.arguments,
-                this.environmentVariables);
+            File nodeModules = new File(this.workingDirectory, "node_modules");
+            TaskOutputCache nodeModulesCache = MojoUtils.getNodeModulesCache(factory, "yarn",
+                this.useNodeModulesCache, INSTALL_COMMANDS, LOCKFILES,
+                new File(this.installDirectory, "node/yarn/dist/package.json"), this.workingDirectory,
+                this.arguments, this.environmentVariables);
+            if (nodeModulesCache != null) {
+                // Yarn Berry installs the version configured in the project
+                nodeModulesCache.addInputFile(new File(this.workingDirectory, ".yarnrc.yml"));
+            }
+            if (nodeModulesCache == null || !nodeModulesCache.restore(nodeModules, true)) {
+                ProxyConfig proxyConfig = getProxyConfig();
+                boolean isYarnBerry = isYarnrcYamlFilePresent(this.session, this.workingDirectory);
+                factory.getYarnRunner(proxyConfig, getRegistryUrl(), isYarnBerry).execute(this.arguments,
+                    this.environmentVariables);
+                if (nodeModulesCache != null) {
+                    nodeModulesCache.store(nodeModules);
+                }
+            }
         } else {
             getLog().info("Skipping yarn install as package.json unchanged");
         }
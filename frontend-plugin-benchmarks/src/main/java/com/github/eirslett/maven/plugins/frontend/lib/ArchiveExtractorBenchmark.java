@@ -0,0 +1,133 @@
+package com.github.eirslett.maven.plugins.frontend.lib;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Extracts an archive shaped like a Node.js distribution: one big binary, and a few thousand small files
+ * in nested directories, like the bundled npm.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ArchiveExtractorBenchmark {
+
+    private static final int SMALL_FILES = 3000;
+
+    private static final int BINARY_SIZE = 32 * 1024 * 1024;
+
+    @Param({"tar.gz", "zip"})
+    public String format;
+
+    private File directory;
+
+    private File archive;
+
+    private File destination;
+
+    private final ArchiveExtractor extractor = new DefaultArchiveExtractor();
+
+    @Setup(Level.Trial)
+    public void createArchive() throws IOException {
+        directory = Files.createTempDirectory("archive-extractor-benchmark").toFile();
+        archive = new File(directory, "node." + format);
+        Random random = new Random(42);
+        if ("zip".equals(format)) {
+            try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(archive))) {
+                out.putNextEntry(new ZipEntry("node/bin/node"));
+                out.write(binary(random, BINARY_SIZE));
+                out.closeEntry();
+                for (int i = 0; i < SMALL_FILES; i++) {
+                    out.putNextEntry(new ZipEntry(smallFileName(i)));
+                    out.write(content(random, random.nextInt(16 * 1024)));
+                    out.closeEntry();
+                }
+            }
+        } else {
+            try (TarArchiveOutputStream out = new TarArchiveOutputStream(
+                    new GzipCompressorOutputStream(new FileOutputStream(archive)))) {
+                out.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+                addTarEntry(out, "node/bin/node", binary(random, BINARY_SIZE), 0755);
+                for (int i = 0; i < SMALL_FILES; i++) {
+                    addTarEntry(out, smallFileName(i), content(random, random.nextInt(16 * 1024)), 0644);
+                }
+            }
+        }
+        destination = new File(directory, "destination");
+    }
+
+    @Setup(Level.Invocation)
+    public void cleanDestination() throws IOException {
+        FileUtils.deleteDirectory(destination);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteArchive() throws IOException {
+        FileUtils.deleteDirectory(directory);
+    }
+
+    @Benchmark
+    public void extract() throws ArchiveExtractionException {
+        extractor.extract(archive.getPath(), destination.getPath());
+    }
+
+    private static String smallFileName(int i) {
+        return "node/lib/node_modules/npm/node_modules/package-" + (i / 20) + "/lib/file-" + i + ".js";
+    }
+
+    private static byte[] binary(Random random, int size) {
+        byte[] content = new byte[size];
+        random.nextBytes(content);
+        return content;
+    }
+
+    /**
+     * Source code compresses well, so the content repeats a few random words.
+     */
+    private static byte[] content(Random random, int size) {
+        String[] words = {"function ", "return ", "const ", "module.exports", " = ", "require(", ");\n", "{", "}"};
+        StringBuilder content = new StringBuilder(size + 16);
+        while (content.length() < size) {
+            content.append(words[random.nextInt(words.length)]);
+        }
+        content.setLength(size);
+        return content.toString().getBytes();
+    }
+
+    private static void addTarEntry(TarArchiveOutputStream out, String name, byte[] content, int mode)
+            throws IOException {
+        TarArchiveEntry entry = new TarArchiveEntry(name);
+        entry.setSize(content.length);
+        entry.setMode(mode);
+        out.putArchiveEntry(entry);
+        out.write(content);
+        out.closeArchiveEntry();
+    }
+}
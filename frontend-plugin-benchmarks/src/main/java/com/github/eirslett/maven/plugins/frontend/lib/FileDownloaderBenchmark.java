@@ -0,0 +1,141 @@
+package com.github.eirslett.maven.plugins.frontend.lib;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Downloads a file of the size of a Node.js archive from an HTTP server in the same JVM, which answers
+ * ranged requests like a mirror does, and copies it from a file: URL.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FileDownloaderBenchmark {
+
+    private static final int SIZE = 48 * 1024 * 1024;
+
+    private static final String ETAG = "\"benchmark\"";
+
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d*)");
+
+    @Param({"1", "4"})
+    public int connections;
+
+    private byte[] content;
+
+    private HttpServer server;
+
+    private HttpClientCache httpClientCache;
+
+    private FileDownloader downloader;
+
+    private File directory;
+
+    private File source;
+
+    private File destination;
+
+    private String url;
+
+    @Setup(Level.Trial)
+    public void startServer() throws IOException {
+        content = new byte[SIZE];
+        new Random(42).nextBytes(content);
+        directory = Files.createTempDirectory("file-downloader-benchmark").toFile();
+        source = new File(directory, "source.tar.gz");
+        Files.write(source.toPath(), content);
+        destination = new File(directory, "node.tar.gz");
+
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/node.tar.gz", this::serve);
+        server.start();
+        url = "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort()
+                + "/node.tar.gz";
+
+        httpClientCache = new HttpClientCache();
+        downloader = new DefaultFileDownloader(new ProxyConfig(Collections.emptyList()), httpClientCache);
+    }
+
+    @Setup(Level.Invocation)
+    public void deleteDestination() {
+        destination.delete();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() throws IOException {
+        httpClientCache.close();
+        server.stop(0);
+        FileUtils.deleteDirectory(directory);
+    }
+
+    @Benchmark
+    public void download() throws DownloadException {
+        downloader.download(url, destination.getPath(), null, null, null, connections, null);
+    }
+
+    @Benchmark
+    public void copyFileUrl() throws DownloadException {
+        downloader.download(source.toURI().toString(), destination.getPath(), null, null, null, connections, null);
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().add("Accept-Ranges", "bytes");
+        exchange.getResponseHeaders().add("ETag", ETAG);
+        int start = 0;
+        int end = content.length - 1;
+        int status = 200;
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        Matcher matcher = range != null ? RANGE.matcher(range) : null;
+        if (matcher != null && matcher.matches()) {
+            start = Integer.parseInt(matcher.group(1));
+            if (!matcher.group(2).isEmpty()) {
+                end = Math.min(end, Integer.parseInt(matcher.group(2)));
+            }
+            status = 206;
+            exchange.getResponseHeaders().add("Content-Range",
+                    "bytes " + start + "-" + end + "/" + content.length);
+        }
+        int length = end - start + 1;
+        if ("HEAD".equals(exchange.getRequestMethod())) {
+            exchange.getResponseHeaders().add("Content-Length", Integer.toString(length));
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+            return;
+        }
+        exchange.sendResponseHeaders(status, length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(content, start, length);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.github.eirslett.maven.plugins.frontend.lib;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.helpers.NOPLogger;
+
+/**
+ * The overhead of starting a process, and of passing a lot of output on to the log. Uses the shell of
+ * the platform, so the numbers include its startup time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ProcessExecutorBenchmark {
+
+    private static final Platform PLATFORM = Platform.guess();
+
+    private static final File WORKING_DIRECTORY = new File(System.getProperty("java.io.tmpdir"));
+
+    private static final List<String> PATHS = Collections.singletonList(WORKING_DIRECTORY.getPath());
+
+    private static final List<String> EXIT = PLATFORM.isWindows()
+            ? Arrays.asList("cmd", "/c", "exit 0") : Arrays.asList("sh", "-c", "exit 0");
+
+    private static final List<String> PRINT_LINES = PLATFORM.isWindows()
+            ? Arrays.asList("cmd", "/c", "for /l %i in (1,1,10000) do @echo line %i")
+            : Arrays.asList("sh", "-c", "i=0; while [ $i -lt 10000 ]; do echo line $i; i=$((i+1)); done");
+
+    @Benchmark
+    public String spawn() throws ProcessExecutionException {
+        return new ProcessExecutor(WORKING_DIRECTORY, PATHS, EXIT, PLATFORM, null)
+                .executeAndGetResult(NOPLogger.NOP_LOGGER);
+    }
+
+    @Benchmark
+    public int redirectOutput() throws ProcessExecutionException {
+        return new ProcessExecutor(WORKING_DIRECTORY, PATHS, PRINT_LINES, PLATFORM,
+                Collections.singletonMap("FRONTEND_BENCHMARK", "true"))
+                .executeAndRedirectOutput(NOPLogger.NOP_LOGGER, null);
+    }
+}
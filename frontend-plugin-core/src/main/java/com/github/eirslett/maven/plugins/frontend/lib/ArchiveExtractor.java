@@ -10,12 +10,28 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.nio.file.AccessDeniedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
@@ -36,13 +52,42 @@ class ArchiveExtractionException extends Exception {
 }
 
 interface ArchiveExtractor {
-    public void extract(String archive, String destinationDirectory) throws ArchiveExtractionException;
+    public default void extract(String archive, String destinationDirectory) throws ArchiveExtractionException {
+        extract(archive, destinationDirectory, Function.identity());
+    }
+
+    /**
+     * Extracts only the entries for which the mapping returns a path, and writes them to that path
+     * (relative to the destination directory) instead of their path in the archive. MSI packages are
+     * always extracted completely.
+     */
+    public default void extract(String archive, String destinationDirectory, Function<String, String> entryMapping)
+        throws ArchiveExtractionException {
+        extract(archive, destinationDirectory, entryMapping, destinationDirectory);
+    }
+
+    /**
+     * Like {@link #extract(String, String, Function)}, but the symbolic links in the archive may point
+     * anywhere below the link root, which contains the destination directory. This is needed for
+     * {@code node_modules} of workspaces, which link to the packages next to it.
+     */
+    public void extract(String archive, String destinationDirectory, Function<String, String> entryMapping,
+        String linkRoot) throws ArchiveExtractionException;
 }
 
 final class DefaultArchiveExtractor implements ArchiveExtractor {
 
     private static final Logger LOG = LoggerFactory.getLogger(DefaultArchiveExtractor.class);
 
+    /**
+     * Tar entries up to this size are read into memory and written by a worker thread.
+     */
+    private static final int SMALL_ENTRY_SIZE = 256 * 1024;
+
+    private static final int MAX_WORKERS = 8;
+
+    private static final int BUFFERS_PER_WORKER = 4;
+
     private void prepDestination(File path, boolean directory) throws IOException {
         if (directory) {
             path.mkdirs();
@@ -58,7 +103,8 @@ final class DefaultArchiveExtractor implements ArchiveExtractor {
     }
 
     @Override
-    public void extract(String archive, String destinationDirectory) throws ArchiveExtractionException {
+    public void extract(String archive, String destinationDirectory, Function<String, String> entryMapping,
+            String linkRoot) throws ArchiveExtractionException {
         final File archiveFile = new File(archive);
 
         try (FileInputStream fis = new FileInputStream(archiveFile)) {
@@ -77,77 +123,260 @@ final class DefaultArchiveExtractor implements ArchiveExtractor {
                             "Unexpected interruption of while waiting for extraction process", e);
                 }
             } else if ("zip".equals(FileUtils.getExtension(archiveFile.getAbsolutePath()))) {
-                Path destinationPath = Paths.get(destinationDirectory).normalize();
-                try (ZipFile zipFile = new ZipFile(archiveFile)) {
-                    Enumeration<? extends ZipEntry> entries = zipFile.entries();
-                    while (entries.hasMoreElements()) {
-                        ZipEntry entry = entries.nextElement();
-                        final Path destPath = destinationPath.resolve(entry.getName()).normalize();
-                        if (!destPath.startsWith(destinationPath)) {
-                            throw new RuntimeException("Bad zip entry");
-                        }
-                        prepDestination(destPath.toFile(), entry.isDirectory());
-                        if (!entry.isDirectory()) {
-                            InputStream in = null;
-                            OutputStream out = null;
-                            try {
-                                in = zipFile.getInputStream(entry);
-                                out = new BufferedOutputStream(Files.newOutputStream(destPath));
-                                IOUtils.copy(in, out);
-                            } finally {
-                                IOUtils.closeQuietly(in);
-                                IOUtils.closeQuietly(out);
-                            }
-                        }
+                extractZip(archiveFile, destinationDirectory, entryMapping);
+            } else {
+                extractTarGz(fis, destinationDirectory, entryMapping, linkRoot);
+            }
+        } catch (IOException e) {
+            throw new ArchiveExtractionException("Could not extract archive: '"
+                    + archive
+                    + "'", e);
+        }
+    }
+
+    /**
+     * Checks all entries and creates the directories on the calling thread, so nothing is written for an
+     * archive with an entry outside of the destination, and then lets a pool of workers inflate the files.
+     * The central directory of a zip allows reading entries in any order, so each worker opens the archive
+     * itself and takes the next entry, the biggest ones first, until none are left.
+     */
+    private void extractZip(File archiveFile, String destinationDirectory, Function<String, String> entryMapping)
+            throws IOException {
+        Path destinationPath = Paths.get(destinationDirectory).normalize();
+        // a later entry for the same path replaces an earlier one, like when extracting them in order
+        Map<Path, ZipEntry> destinations = new LinkedHashMap<>();
+        try (ZipFile zipFile = new ZipFile(archiveFile)) {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                String entryName = entryMapping.apply(entry.getName());
+                if (entryName == null) {
+                    continue;
+                }
+                final Path destPath = destinationPath.resolve(entryName).normalize();
+                if (!destPath.startsWith(destinationPath)) {
+                    throw new RuntimeException("Bad zip entry");
+                }
+                if (entry.isDirectory()) {
+                    prepDestination(destPath.toFile(), true);
+                } else {
+                    destinations.put(destPath, entry);
+                }
+            }
+        }
+        for (Path destPath : destinations.keySet()) {
+            prepDestination(destPath.toFile(), false);
+            // an existing file may be a link into the install store, which must not be written through
+            Files.deleteIfExists(destPath);
+        }
+        List<Map.Entry<Path, ZipEntry>> files = new ArrayList<>(destinations.entrySet());
+        files.sort(Comparator.comparingLong((Map.Entry<Path, ZipEntry> file) -> file.getValue().getCompressedSize())
+            .reversed());
+
+        int workers = Math.max(1, Math.min(Math.min(Runtime.getRuntime().availableProcessors(), MAX_WORKERS),
+            files.size()));
+        AtomicInteger next = new AtomicInteger();
+        AtomicReference<IOException> failure = new AtomicReference<>();
+        Runnable worker = () -> {
+            try (ZipFile zipFile = new ZipFile(archiveFile)) {
+                for (int i = next.getAndIncrement(); i < files.size() && failure.get() == null;
+                        i = next.getAndIncrement()) {
+                    Map.Entry<Path, ZipEntry> file = files.get(i);
+                    try (InputStream in = zipFile.getInputStream(file.getValue());
+                            OutputStream out = new BufferedOutputStream(Files.newOutputStream(file.getKey()))) {
+                        IOUtils.copy(in, out);
                     }
                 }
-            } else {
-                // TarArchiveInputStream can be constructed with a normal FileInputStream if
-                // we ever need to extract regular '.tar' files.
-                TarArchiveInputStream tarIn = null;
+            } catch (IOException e) {
+                failure.compareAndSet(null, e);
+            } catch (RuntimeException e) {
+                failure.compareAndSet(null, new IOException("Could not extract " + archiveFile, e));
+            }
+        };
+        if (workers == 1) {
+            worker.run();
+        } else {
+            ExecutorService executor = Executors.newFixedThreadPool(workers - 1);
+            try {
+                for (int i = 1; i < workers; i++) {
+                    executor.execute(worker);
+                }
+                worker.run();
+            } finally {
+                // don't let workers write files after we return, callers may clean up the destination on failure
+                executor.shutdown();
                 try {
-                    tarIn = new TarArchiveInputStream(new GzipCompressorInputStream(fis));
-
-                    TarArchiveEntry tarEntry = tarIn.getNextTarEntry();
-                    File destinationDir = new File(destinationDirectory);
-                    String canonicalDestinationDirectory = destinationDir.getCanonicalPath();
-                    // Use canonical path to ensure consistent symlink resolution on all platforms
-                    File canonicalDestinationDir = new File(canonicalDestinationDirectory);
-                    while (tarEntry != null) {
-                        // Create a file for this tarEntry using canonical destination to ensure
-                        // consistent path resolution, especially with symlinks on Windows
-                        final File destPath = new File(canonicalDestinationDir, tarEntry.getName());
-                        prepDestination(destPath, tarEntry.isDirectory());
-
-                        if (!startsWithPath(destPath.getCanonicalPath(), canonicalDestinationDirectory)) {
-                            throw new IOException(
-                                    "Expanding " + tarEntry.getName() + " would create file outside of " + canonicalDestinationDirectory
-                            );
-                        }
+                    executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    executor.shutdownNow();
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while extracting into " + destinationDirectory);
+                }
+            }
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+
+    /**
+     * Inflates the archive and parses the tar headers on the calling thread, while a pool of workers
+     * creates and writes the files. Entries up to {@link #SMALL_ENTRY_SIZE} are handed over in pooled
+     * buffers; bigger ones are streamed to disk by the calling thread, as the tar stream can't be read
+     * out of order. The number of buffers bounds both memory use and how far reading gets ahead of writing.
+     * An entry for a path that a worker is still writing waits for it, so later entries replace earlier ones
+     * like when extracting them in order.
+     */
+    private void extractTarGz(InputStream in, String destinationDirectory, Function<String, String> entryMapping,
+            String linkRoot) throws IOException {
+        File destinationDir = new File(destinationDirectory);
+        String canonicalDestinationDirectory = destinationDir.getCanonicalPath();
+        String canonicalLinkRoot = new File(linkRoot).getCanonicalPath();
+        // Use canonical path to ensure consistent symlink resolution on all platforms
+        File canonicalDestinationDir = new File(canonicalDestinationDirectory);
+
+        int workers = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), MAX_WORKERS));
+        BufferPool buffers = new BufferPool(workers * BUFFERS_PER_WORKER, SMALL_ENTRY_SIZE);
+        AtomicReference<IOException> failure = new AtomicReference<>();
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        Map<Path, CountDownLatch> pending = new ConcurrentHashMap<>();
+        // TarArchiveInputStream can be constructed with a normal FileInputStream if
+        // we ever need to extract regular '.tar' files.
+        try (TarArchiveInputStream tarIn = new TarArchiveInputStream(new GzipCompressorInputStream(in))) {
+            for (TarArchiveEntry tarEntry = tarIn.getNextTarEntry(); tarEntry != null && failure.get() == null;
+                    tarEntry = tarIn.getNextTarEntry()) {
+                final String name = entryMapping.apply(tarEntry.getName());
+                if (name == null) {
+                    continue;
+                }
+                // Create a file for this tarEntry using canonical destination to ensure
+                // consistent path resolution, especially with symlinks on Windows
+                final File destPath = new File(canonicalDestinationDir, name);
+                final boolean isExecutable = (tarEntry.getMode() & 0100) > 0;
+                final Path pendingPath = destPath.toPath().normalize();
+                CountDownLatch earlier = pending.get(pendingPath);
+                if (earlier != null) {
+                    earlier.await();
+                }
 
-                        if (!tarEntry.isDirectory()) {
-                            destPath.createNewFile();
-                            boolean isExecutable = (tarEntry.getMode() & 0100) > 0;
-                            destPath.setExecutable(isExecutable);
-
-                            OutputStream out = null;
-                            try {
-                                out = new FileOutputStream(destPath);
-                                IOUtils.copy(tarIn, out);
-                            } finally {
-                                IOUtils.closeQuietly(out);
+                if (tarEntry.isDirectory()) {
+                    checkDestination(destPath, name, canonicalDestinationDirectory);
+                    prepDestination(destPath, true);
+                } else if (tarEntry.isSymbolicLink()) {
+                    createSymbolicLink(destPath, name, tarEntry.getLinkName(), canonicalDestinationDirectory,
+                        canonicalLinkRoot);
+                } else if (tarEntry.getSize() <= SMALL_ENTRY_SIZE) {
+                    final int size = (int) tarEntry.getSize();
+                    final byte[] buffer = buffers.acquire();
+                    IOUtils.readFully(tarIn, buffer, 0, size);
+                    final CountDownLatch written = new CountDownLatch(1);
+                    pending.put(pendingPath, written);
+                    executor.execute(() -> {
+                        try {
+                            createFile(destPath, name, canonicalDestinationDirectory, isExecutable);
+                            try (OutputStream out = new FileOutputStream(destPath)) {
+                                out.write(buffer, 0, size);
                             }
+                        } catch (IOException e) {
+                            failure.compareAndSet(null, e);
+                        } catch (RuntimeException e) {
+                            failure.compareAndSet(null, new IOException("Could not extract " + name, e));
+                        } finally {
+                            buffers.release(buffer);
+                            pending.remove(pendingPath, written);
+                            written.countDown();
                         }
-                        tarEntry = tarIn.getNextTarEntry();
+                    });
+                } else {
+                    createFile(destPath, name, canonicalDestinationDirectory, isExecutable);
+                    try (OutputStream out = new FileOutputStream(destPath)) {
+                        IOUtils.copy(tarIn, out);
                     }
-                } finally {
-                    IOUtils.closeQuietly(tarIn);
                 }
             }
-        } catch (IOException e) {
-            throw new ArchiveExtractionException("Could not extract archive: '"
-                    + archive
-                    + "'", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while extracting into " + destinationDirectory);
+        } finally {
+            // don't let workers write files after we return, callers may clean up the destination on failure
+            executor.shutdown();
+            try {
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+
+    private void createFile(File destPath, String entryName, String canonicalDestinationDirectory,
+            boolean isExecutable) throws IOException {
+        checkDestination(destPath, entryName, canonicalDestinationDirectory);
+        prepDestination(destPath, false);
+        // an existing file may be a link into the install store, which must not be written through
+        Files.deleteIfExists(destPath.toPath());
+        destPath.createNewFile();
+        destPath.setExecutable(isExecutable);
+    }
+
+    private void createSymbolicLink(File destPath, String entryName, String target,
+            String canonicalDestinationDirectory, String canonicalLinkRoot) throws IOException {
+        checkDestination(destPath, entryName, canonicalDestinationDirectory);
+        // nothing may be written through the link outside of the link root either
+        checkDestination(destPath.toPath().getParent().resolve(target).toFile(), entryName, canonicalLinkRoot);
+        prepDestination(destPath, false);
+        Files.deleteIfExists(destPath.toPath());
+        Files.createSymbolicLink(destPath.toPath(), Paths.get(target));
+    }
+
+    private void checkDestination(File destPath, String entryName, String canonicalDestinationDirectory)
+            throws IOException {
+        if (!startsWithPath(destPath.getCanonicalPath(), canonicalDestinationDirectory)) {
+            throw new IOException(
+                    "Expanding " + entryName + " would create file outside of " + canonicalDestinationDirectory
+            );
+        }
+    }
+
+    /**
+     * A fixed number of equally sized buffers, allocated on first use. Acquiring blocks while all of
+     * them are in use.
+     */
+    private static final class BufferPool {
+
+        private final BlockingQueue<byte[]> available;
+
+        private final int capacity;
+
+        private final int bufferSize;
+
+        private int allocated;
+
+        BufferPool(int capacity, int bufferSize) {
+            this.available = new ArrayBlockingQueue<>(capacity);
+            this.capacity = capacity;
+            this.bufferSize = bufferSize;
+        }
+
+        byte[] acquire() throws InterruptedException {
+            byte[] buffer = available.poll();
+            if (buffer != null) {
+                return buffer;
+            }
+            synchronized (this) {
+                if (allocated < capacity) {
+                    allocated++;
+                    return new byte[bufferSize];
+                }
+            }
+            return available.take();
+        }
+
+        void release(byte[] buffer) {
+            available.offer(buffer);
         }
     }
 
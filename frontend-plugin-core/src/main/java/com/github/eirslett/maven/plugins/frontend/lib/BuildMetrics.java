@@ -0,0 +1,207 @@
+package com.github.eirslett.maven.plugins.frontend.lib;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.eirslett.maven.plugins.frontend.lib.Metrics.Event;
+
+/**
+ * Collects the {@link Metrics} of the modules of a build. When closed, it writes them as JSON to the report
+ * file, per module and in total, and logs a summary.
+ */
+public final class BuildMetrics implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BuildMetrics.class);
+
+    private final File reportFile;
+
+    private final Map<String, Metrics> modules = new LinkedHashMap<>();
+
+    private final Set<String> downloads = ConcurrentHashMap.newKeySet();
+
+    public BuildMetrics(File reportFile) {
+        this.reportFile = reportFile;
+    }
+
+    /**
+     * Returns the metrics of the module, to create a {@link FrontendPluginFactory} with.
+     */
+    public synchronized Metrics forModule(String module) {
+        return modules.computeIfAbsent(module, name -> new Metrics(name, downloads));
+    }
+
+    @Override
+    public void close() throws IOException {
+        List<Metrics> metrics;
+        synchronized (this) {
+            metrics = new ArrayList<>(modules.values());
+            modules.clear();
+        }
+        List<Event> allEvents = new ArrayList<>();
+        List<Map<String, Object>> moduleReports = new ArrayList<>();
+        for (Metrics module : metrics) {
+            List<Event> events = module.getEvents();
+            if (events.isEmpty()) {
+                continue;
+            }
+            allEvents.addAll(events);
+            Map<String, Object> moduleReport = new LinkedHashMap<>();
+            moduleReport.put("module", module.getModule());
+            moduleReport.putAll(aggregate(new Summary(events)));
+            List<Map<String, Object>> eventReports = new ArrayList<>();
+            for (Event event : events) {
+                eventReports.add(toMap(event));
+            }
+            moduleReport.put("events", eventReports);
+            moduleReports.add(moduleReport);
+        }
+        if (allEvents.isEmpty()) {
+            return;
+        }
+        Summary summary = new Summary(allEvents);
+        Map<String, Object> report = new LinkedHashMap<>(aggregate(summary));
+        report.put("modules", moduleReports);
+        reportFile.getAbsoluteFile().getParentFile().mkdirs();
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(reportFile, report);
+        LOGGER.info("{}; see {}", summarize(summary), reportFile);
+    }
+
+    private static Map<String, Object> aggregate(Summary summary) {
+        Totals downloads = summary.downloads;
+        Totals extractions = summary.extractions;
+        Totals installations = summary.installations;
+        Totals tasks = summary.tasks;
+        Map<String, Object> aggregate = new LinkedHashMap<>();
+
+        Map<String, Object> download = downloads.toMap();
+        download.put("bytes", downloads.bytes);
+        download.put("bytesPerSecond", downloads.bytesPerSecond());
+        aggregate.put("downloads", download);
+
+        Map<String, Object> extraction = extractions.toMap();
+        extraction.put("bytes", extractions.bytes);
+        extraction.put("entries", extractions.entries);
+        extraction.put("cacheHits", extractions.hits);
+        extraction.put("cacheMisses", extractions.count - extractions.hits);
+        aggregate.put("extractions", extraction);
+
+        Map<String, Object> installation = installations.toMap();
+        installation.put("reused", installations.hits);
+        aggregate.put("installations", installation);
+
+        Map<String, Object> task = tasks.toMap();
+        task.put("failed", tasks.failures);
+        aggregate.put("tasks", task);
+        return aggregate;
+    }
+
+    private static Map<String, Object> toMap(Event event) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("type", event.type);
+        map.put("name", event.name);
+        map.put("millis", TimeUnit.NANOSECONDS.toMillis(event.nanos));
+        switch (event.type) {
+            case Event.DOWNLOAD:
+                map.put("bytes", event.bytes);
+                break;
+            case Event.EXTRACTION:
+                map.put("bytes", event.bytes);
+                map.put("entries", event.entries);
+                map.put("cacheHit", event.cacheHit);
+                break;
+            case Event.INSTALLATION:
+                map.put("reused", event.cacheHit);
+                break;
+            default:
+                map.put("exitCode", event.exitCode);
+        }
+        return map;
+    }
+
+    private static String summarize(Summary summary) {
+        Totals downloads = summary.downloads;
+        Totals extractions = summary.extractions;
+        Totals installations = summary.installations;
+        Totals tasks = summary.tasks;
+        return String.format(Locale.ROOT,
+                "Frontend: %d downloads (%.1f MB at %.1f MB/s), %d extractions (%d from the cache) in %.1f s, "
+                        + "%d installations in %.1f s, %d tasks in %.1f s",
+                downloads.count, downloads.bytes / 1e6, downloads.bytesPerSecond() / 1e6,
+                extractions.count, extractions.hits, extractions.nanos / 1e9,
+                installations.count, installations.nanos / 1e9,
+                tasks.count, tasks.nanos / 1e9);
+    }
+
+    private static final class Summary {
+        private final Totals downloads = new Totals();
+        private final Totals extractions = new Totals();
+        private final Totals installations = new Totals();
+        private final Totals tasks = new Totals();
+
+        Summary(Collection<Event> events) {
+            for (Event event : events) {
+                switch (event.type) {
+                    case Event.DOWNLOAD:
+                        downloads.add(event);
+                        break;
+                    case Event.EXTRACTION:
+                        extractions.add(event);
+                        break;
+                    case Event.INSTALLATION:
+                        installations.add(event);
+                        break;
+                    default:
+                        tasks.add(event);
+                }
+            }
+        }
+    }
+
+    private static final class Totals {
+        private long count;
+        private long nanos;
+        private long bytes;
+        private long entries;
+        private long hits;
+        private long failures;
+
+        void add(Event event) {
+            count++;
+            nanos += event.nanos;
+            bytes += event.bytes;
+            entries += event.entries;
+            if (event.cacheHit) {
+                hits++;
+            }
+            if (event.exitCode != 0) {
+                failures++;
+            }
+        }
+
+        long bytesPerSecond() {
+            return nanos == 0 ? 0 : (long) (bytes / (nanos / 1e9));
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("count", count);
+            map.put("millis", TimeUnit.NANOSECONDS.toMillis(nanos));
+            return map;
+        }
+    }
+}
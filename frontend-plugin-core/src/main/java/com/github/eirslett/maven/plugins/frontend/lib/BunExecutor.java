@@ -2,6 +2,7 @@ package com.github.eirslett.maven.plugins.frontend.lib;
 
 import org.slf4j.Logger;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -25,7 +26,7 @@ final class BunExecutor {
         return executor.executeAndGetResult(logger);
     }
 
-    public int executeAndRedirectOutput(final Logger logger) throws ProcessExecutionException {
-        return executor.executeAndRedirectOutput(logger);
+    public int executeAndRedirectOutput(final Logger logger, final File outputFile) throws ProcessExecutionException {
+        return executor.executeAndRedirectOutput(logger, outputFile);
     }
 }
@@ -11,6 +11,20 @@ public interface BunExecutorConfig {
     File getWorkingDirectory();
 
     Platform getPlatform();
+
+    /**
+     * @return the file to write the output of the processes to instead of the log, none by default
+     */
+    default File getOutputFile() {
+        return null;
+    }
+
+    /**
+     * @return where to record the time spent, nowhere by default
+     */
+    default Metrics getMetrics() {
+        return Metrics.NONE;
+    }
 }
 
 final class InstallBunExecutorConfig implements BunExecutorConfig {
@@ -47,4 +61,14 @@ final class InstallBunExecutorConfig implements BunExecutorConfig {
     public Platform getPlatform() {
         return installConfig.getPlatform();
     }
+
+    @Override
+    public File getOutputFile() {
+        return installConfig.getOutputFile();
+    }
+
+    @Override
+    public Metrics getMetrics() {
+        return installConfig.getMetrics();
+    }
 }
\ No newline at end of file
@@ -19,11 +19,12 @@ public class BunInstaller {
 
     public static final String DEFAULT_BUN_DOWNLOAD_ROOT =
             "https://github.com/oven-sh/bun/releases/download/";
-    private static final Object LOCK = new Object();
 
     private String bunVersion, bunDownloadRoot, userName, password;
 
     private Map<String, String> httpHeaders;
+
+    private int downloadConnections = 1;
     
     private final Logger logger;
 
@@ -64,26 +65,64 @@ public class BunInstaller {
         this.httpHeaders = httpHeaders;
         return this;
     }
+
+    public BunInstaller setDownloadConnections(int downloadConnections) {
+        this.downloadConnections = downloadConnections;
+        return this;
+    }
     
     public void install() throws InstallationException {
-        // use static lock object for a synchronized block
-        synchronized (LOCK) {
+        File bunDirectory = new File(this.config.getInstallDirectory(), INSTALL_PATH);
+        // the other executions of the build that install into the same directory don't check it again
+        this.config.getInstallRegistry().install("bun", this.bunVersion, bunDirectory,
+            this.config.getMetrics(), () -> installIfMissing(bunDirectory));
+    }
+
+    private void installIfMissing(File bunDirectory) throws InstallationException {
+        // installations into other directories, also by other processes, don't have to wait for this one
+        try (InstallLocks.Lock lock = InstallLocks.lockDirectory(bunDirectory)) {
             if (!bunIsAlreadyInstalled()) {
                 if (!this.bunVersion.startsWith("v")) {
                     this.logger.warn("Bun version does not start with naming convention 'v'.");
                 }
                 installBunDefault();
+                InstallManifest.write(new InstallBunExecutorConfig(config).getBunPath(),
+                        this.bunVersion.replaceFirst("^v", ""), createBunTargetArchitecturePath());
             }
         }
     }
 
+    /**
+     * Downloads Bun into the cache, so that {@link #install()} only has to extract it. Nothing is downloaded
+     * if Bun is installed already, unless it's known to be another version.
+     */
+    public void download() throws InstallationException {
+        File bunFile = new InstallBunExecutorConfig(config).getBunPath();
+        if (bunFile.exists()) {
+            String version = InstallManifest.readVersion(bunFile, createBunTargetArchitecturePath());
+            if (version == null || version.equals(this.bunVersion.replaceFirst("^v", ""))) {
+                return;
+            }
+        }
+        try {
+            downloadArchive();
+        } catch (DownloadException e) {
+            throw new InstallationException("Could not download bun", e);
+        }
+    }
+
     private boolean bunIsAlreadyInstalled() {
         try {
             BunExecutorConfig executorConfig = new InstallBunExecutorConfig(config);
             File bunFile = executorConfig.getBunPath();
             if (bunFile.exists()) {
-                final String version =
-                        new BunExecutor(executorConfig, Arrays.asList("--version"), null).executeAndGetResult(logger);
+                String version = InstallManifest.readVersion(bunFile, createBunTargetArchitecturePath());
+                if (version == null) {
+                    version = new BunExecutor(executorConfig, Arrays.asList("--version"), null).executeAndGetResult(logger);
+                    if (version.equals(this.bunVersion.replaceFirst("^v", ""))) {
+                        InstallManifest.write(bunFile, version, createBunTargetArchitecturePath());
+                    }
+                }
 
                 if (version.equals(this.bunVersion.replaceFirst("^v", ""))) {
                     this.logger.info("Bun {} is already installed.", version);
@@ -107,14 +146,7 @@ public class BunInstaller {
 
             logger.info("Installing Bun version {}", bunVersion);
 
-            String downloadUrl = createDownloadUrl();
-
-            CacheDescriptor cacheDescriptor = new CacheDescriptor("bun", this.bunVersion,
-                    "zip");
-
-            File archive = this.config.getCacheResolver().resolve(cacheDescriptor);
-
-            downloadFileIfMissing(downloadUrl, archive, this.userName, this.password, this.httpHeaders);
+            File archive = downloadArchive();
 
             File installDirectory = getInstallDirectory();
 
@@ -183,6 +215,18 @@ public class BunInstaller {
         }
     }
 
+    private File downloadArchive() throws DownloadException {
+        String downloadUrl = createDownloadUrl();
+
+        CacheDescriptor cacheDescriptor = new CacheDescriptor("bun", this.bunVersion,
+                "zip");
+
+        File archive = this.config.getCacheResolver().resolve(cacheDescriptor);
+
+        downloadFileIfMissing(downloadUrl, archive, this.userName, this.password, this.httpHeaders);
+        return archive;
+    }
+
     private String createDownloadUrl() {
         String downloadRoot = this.bunDownloadRoot;
         if (downloadRoot == null || downloadRoot.isEmpty()) {
@@ -221,14 +265,17 @@ public class BunInstaller {
 
     private void downloadFileIfMissing(String downloadUrl, File destination, String userName, String password, Map<String, String> httpHeaders)
             throws DownloadException {
-        if (!destination.exists()) {
-            downloadFile(downloadUrl, destination, userName, password, httpHeaders);
+        try (InstallLocks.Lock lock = InstallLocks.lockFile(destination)) {
+            if (!destination.exists()) {
+                downloadFile(downloadUrl, destination, userName, password, httpHeaders);
+            }
         }
     }
 
     private void downloadFile(String downloadUrl, File destination, String userName, String password, Map<String, String> httpHeaders)
             throws DownloadException {
         this.logger.info("Downloading {} to {}", downloadUrl, destination);
-        this.fileDownloader.download(downloadUrl, destination.getPath(), userName, password, httpHeaders);
+        this.fileDownloader.download(downloadUrl, destination.getPath(), userName, password, httpHeaders,
+                this.downloadConnections, null);
     }
 }
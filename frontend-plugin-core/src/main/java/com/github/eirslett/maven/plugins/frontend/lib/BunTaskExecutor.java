@@ -52,15 +52,20 @@ abstract class BunTaskExecutor {
         final List<String> arguments = getArguments(args);
         logger.info("Running " + taskToString(taskName, arguments) + " in " + config.getWorkingDirectory());
 
+        final long start = System.nanoTime();
+        // stays -1 if the process couldn't be run
+        int result = -1;
         try {
-            final int result =
-                    new BunExecutor(config, arguments, environment).executeAndRedirectOutput(logger);
+            result =
+                    new BunExecutor(config, arguments, environment).executeAndRedirectOutput(logger, config.getOutputFile());
             if (result != 0) {
                 throw new TaskRunnerException(
                         taskToString(taskName, arguments) + " failed. (error code " + result + ")");
             }
         } catch (ProcessExecutionException e) {
             throw new TaskRunnerException(taskToString(taskName, arguments) + " failed.", e);
+        } finally {
+            config.getMetrics().task(taskName, System.nanoTime() - start, result);
         }
     }
 
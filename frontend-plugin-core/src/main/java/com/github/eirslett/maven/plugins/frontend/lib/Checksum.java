@@ -0,0 +1,164 @@
+package com.github.eirslett.maven.plugins.frontend.lib;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Locale;
+
+/**
+ * An expected digest of a downloaded file. Once a file has been found to match, a small marker file is
+ * written next to it, so later builds can skip hashing it again as long as its size and modification time
+ * don't change.
+ */
+final class Checksum {
+
+    private static final String MARKER_SUFFIX = ".verified";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final String algorithm;
+
+    private final byte[] expected;
+
+    private Checksum(String algorithm, byte[] expected) {
+        this.algorithm = algorithm;
+        this.expected = expected;
+    }
+
+    /**
+     * @param hex a SHA-256 digest as listed in a SHASUMS256.txt file
+     */
+    static Checksum sha256(String hex) {
+        return new Checksum("SHA-256", fromHex(hex));
+    }
+
+    /**
+     * @param integrity a Subresource Integrity string as published in the {@code dist.integrity} field of
+     *                  the npm registry, like {@code sha512-<base64>}
+     * @return null if none of the listed algorithms is supported
+     */
+    static Checksum fromIntegrity(String integrity) {
+        for (String entry : integrity.trim().split("\\s+")) {
+            int separator = entry.indexOf('-');
+            if (separator < 0) {
+                continue;
+            }
+            String algorithm = entry.substring(0, separator).toLowerCase(Locale.ROOT);
+            if (algorithm.equals("sha512") || algorithm.equals("sha384") || algorithm.equals("sha256")) {
+                try {
+                    return new Checksum("SHA-" + algorithm.substring(3),
+                        Base64.getDecoder().decode(entry.substring(separator + 1)));
+                } catch (IllegalArgumentException e) {
+                    // malformed entry, try the next one
+                }
+            }
+        }
+        return null;
+    }
+
+    MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(algorithm + " is not supported by this JVM", e);
+        }
+    }
+
+    boolean matches(byte[] digest) {
+        return MessageDigest.isEqual(expected, digest);
+    }
+
+    /**
+     * Hashes the file and records it as verified if it matches.
+     */
+    boolean verify(File file) throws IOException {
+        MessageDigest digest = newDigest();
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        if (matches(digest.digest())) {
+            markVerified(file);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Records that the file matched this checksum.
+     */
+    void markVerified(File file) throws IOException {
+        String marker = algorithm + " " + toHex(expected) + " " + file.length() + " " + file.lastModified();
+        Utils.writeAtomically(getMarker(file).toPath(), marker.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return whether the file has been verified before and hasn't changed since
+     */
+    static boolean isVerified(File file) {
+        return readMarker(file) != null;
+    }
+
+    /**
+     * @return whether the file has been verified against this checksum before and hasn't changed since
+     */
+    boolean wasVerified(File file) {
+        String[] fields = readMarker(file);
+        return fields != null && fields[0].equals(algorithm) && fields[1].equals(toHex(expected));
+    }
+
+    private static String[] readMarker(File file) {
+        File marker = getMarker(file);
+        if (!file.isFile() || !marker.isFile()) {
+            return null;
+        }
+        try {
+            String[] fields = new String(Files.readAllBytes(marker.toPath()), StandardCharsets.UTF_8).trim().split(" ");
+            return fields.length == 4
+                && Long.parseLong(fields[2]) == file.length()
+                && Long.parseLong(fields[3]) == file.lastModified() ? fields : null;
+        } catch (IOException | NumberFormatException e) {
+            return null;
+        }
+    }
+
+    static void clearVerified(File file) {
+        getMarker(file).delete();
+    }
+
+    private static File getMarker(File file) {
+        return new File(file.getPath() + MARKER_SUFFIX);
+    }
+
+    private static byte[] fromHex(String hex) {
+        if (hex.length() % 2 != 0) {
+            throw new IllegalArgumentException("Not a hex string: " + hex);
+        }
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+        }
+        return bytes;
+    }
+
+    static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    @Override
+    public String toString() {
+        return algorithm + " " + toHex(expected);
+    }
+}
@@ -0,0 +1,140 @@
+package com.github.eirslett.maven.plugins.frontend.lib;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Looks up the published checksums of the archives the installers download: the SHASUMS256.txt file of
+ * a Node.js release, and the {@code dist.integrity} field of the npm registry metadata for packages. Both
+ * are kept in the cache next to the archives, so they are only fetched once per version. If no checksum can
+ * be found, the archive is used without verification, as before; a checksum file that couldn't be fetched
+ * isn't requested again while the install registry lives, typically for the rest of the build.
+ */
+final class ChecksumResolver {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ChecksumResolver.class);
+
+    private static final String REGISTRY_TARBALL_PATH = "/-/";
+
+    private final CacheResolver cacheResolver;
+
+    private final FileDownloader fileDownloader;
+
+    private final InstallRegistry installRegistry;
+
+    ChecksumResolver(CacheResolver cacheResolver, FileDownloader fileDownloader, InstallRegistry installRegistry) {
+        this.cacheResolver = cacheResolver;
+        this.fileDownloader = fileDownloader;
+        this.installRegistry = installRegistry;
+    }
+
+    /**
+     * @param downloadFilename the path of the file relative to the release directory, like
+     *                         {@code node-v20.10.0-linux-x64.tar.gz} or {@code win-x64/node.exe}
+     */
+    Checksum getNodeChecksum(String nodeDownloadRoot, String nodeVersion, String downloadFilename, String userName,
+            String password, Map<String, String> httpHeaders) {
+        File shasums = this.cacheResolver.resolve(new CacheDescriptor("node", nodeVersion, "shasums256", "txt"));
+        String shasumsUrl = nodeDownloadRoot + nodeVersion + "/SHASUMS256.txt";
+        if (!fetchIfMissing(shasumsUrl, shasums, userName, password, httpHeaders)) {
+            return null;
+        }
+        try {
+            for (String line : Files.readAllLines(shasums.toPath(), StandardCharsets.UTF_8)) {
+                String[] fields = line.trim().split("\\s+");
+                if (fields.length == 2 && fields[1].equals(downloadFilename)) {
+                    return Checksum.sha256(fields[0]);
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            LOGGER.warn("Could not read {}: {}", shasums, e.getMessage());
+            return null;
+        }
+        LOGGER.warn("{} has no checksum for {}, the download will not be verified", shasumsUrl, downloadFilename);
+        return null;
+    }
+
+    /**
+     * @param downloadRoot the tarball directory of the package in an npm registry, like
+     *                     {@code https://registry.npmjs.org/npm/-/}
+     */
+    Checksum getPackageChecksum(String downloadRoot, String packageName, String version, String userName,
+            String password, Map<String, String> httpHeaders) {
+        if (!downloadRoot.endsWith(REGISTRY_TARBALL_PATH)) {
+            LOGGER.info("{} doesn't look like an npm registry, the download of {} will not be verified",
+                downloadRoot, packageName);
+            return null;
+        }
+        String metadataUrl = downloadRoot.substring(0, downloadRoot.length() - REGISTRY_TARBALL_PATH.length() + 1)
+            + version;
+        File metadata = this.cacheResolver.resolve(new CacheDescriptor(packageName, version, "metadata", "json"));
+        if (!fetchIfMissing(metadataUrl, metadata, userName, password, httpHeaders)) {
+            return null;
+        }
+        try {
+            JsonNode integrity = new ObjectMapper().readTree(metadata).path("dist").path("integrity");
+            Checksum checksum = integrity.isTextual() ? Checksum.fromIntegrity(integrity.asText()) : null;
+            if (checksum == null) {
+                LOGGER.warn("{} has no usable integrity checksum, the download will not be verified", metadataUrl);
+            }
+            return checksum;
+        } catch (IOException e) {
+            LOGGER.warn("Could not read {}: {}", metadata, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Decides whether an archive that is already in the cache can be used. An archive that doesn't match
+     * its checksum is deleted, so it gets downloaded again.
+     */
+    static boolean isIntact(File archive, Checksum checksum) {
+        if (checksum == null) {
+            return true;
+        }
+        try {
+            if (checksum.verify(archive)) {
+                return true;
+            }
+            LOGGER.warn("The archive file {} doesn't match its checksum and will be downloaded again", archive);
+        } catch (IOException e) {
+            LOGGER.warn("Could not verify the archive file {} ({}), it will be downloaded again", archive,
+                e.getMessage());
+        }
+        archive.delete();
+        Checksum.clearVerified(archive);
+        return false;
+    }
+
+    private boolean fetchIfMissing(String url, File destination, String userName, String password,
+            Map<String, String> httpHeaders) {
+        // checksum files are shared by the archives of all platforms of a release, and by concurrent builds
+        try (InstallLocks.Lock lock = InstallLocks.lockFile(destination)) {
+            if (destination.exists()) {
+                return true;
+            }
+            if (this.installRegistry.hasDownloadFailed(url)) {
+                LOGGER.debug("{} could not be downloaded earlier in this build, not verifying the download", url);
+                return false;
+            }
+            try {
+                LOGGER.info("Downloading {} to {}", url, destination);
+                this.fileDownloader.download(url, destination.getPath(), userName, password, httpHeaders);
+                return true;
+            } catch (DownloadException e) {
+                this.installRegistry.downloadFailed(url);
+                LOGGER.warn("Could not download {} ({}), the download will not be verified", url,
+                    e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+                return false;
+            }
+        }
+    }
+}
@@ -10,6 +10,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Function;
 
 public class CorepackInstaller {
 
@@ -17,7 +18,7 @@ public class CorepackInstaller {
 
     public static final String DEFAULT_COREPACK_DOWNLOAD_ROOT = "https://registry.npmjs.org/corepack/-/";
 
-    private static final Object LOCK = new Object();
+    private static final String PACKAGE_PATH = "package/";
 
     private String corepackVersion, corepackDownloadRoot, userName, password;
 
@@ -31,11 +32,15 @@ public class CorepackInstaller {
 
     private final FileDownloader fileDownloader;
 
+    private final ChecksumResolver checksumResolver;
+
     CorepackInstaller(InstallConfig config, ArchiveExtractor archiveExtractor, FileDownloader fileDownloader) {
         this.logger = LoggerFactory.getLogger(getClass());
         this.config = config;
         this.archiveExtractor = archiveExtractor;
         this.fileDownloader = fileDownloader;
+        this.checksumResolver = new ChecksumResolver(config.getCacheResolver(), fileDownloader,
+            config.getInstallRegistry());
     }
 
     public CorepackInstaller setNodeVersion(String nodeVersion) {
@@ -68,11 +73,15 @@ public class CorepackInstaller {
     }
 
     public void install() throws InstallationException {
-        // use static lock object for a synchronized block
-        synchronized (LOCK) {
-            if (this.corepackDownloadRoot == null || this.corepackDownloadRoot.isEmpty()) {
-                this.corepackDownloadRoot = DEFAULT_COREPACK_DOWNLOAD_ROOT;
-            }
+        File nodeDirectory = new File(this.config.getInstallDirectory(), NodeInstaller.INSTALL_PATH);
+        // the other executions of the build that install into the same directory don't check it again
+        this.config.getInstallRegistry().install("corepack", this.corepackVersion, nodeDirectory,
+            this.config.getMetrics(), () -> installIfMissing(nodeDirectory));
+    }
+
+    private void installIfMissing(File nodeDirectory) throws InstallationException {
+        // installations into other directories, also by other processes, don't have to wait for this one
+        try (InstallLocks.Lock lock = InstallLocks.lockDirectory(nodeDirectory)) {
             if (!corepackIsAlreadyInstalled()) {
                 installCorepack();
             }
@@ -85,6 +94,24 @@ public class CorepackInstaller {
         }
     }
 
+    /**
+     * Downloads corepack into the cache, so that {@link #install()} only has to extract it. Unlike installing, this
+     * doesn't need Node.js, so it can run while Node.js is being installed. Nothing is downloaded if some
+     * version of corepack is installed already; {@link #install()} downloads another version if needed.
+     */
+    public void download() throws InstallationException {
+        final File corepackPackageJson = new File(
+            this.config.getInstallDirectory() + Utils.normalize("/node/node_modules/corepack/package.json"));
+        if ("provided".equals(this.corepackVersion) || corepackPackageJson.exists()) {
+            return;
+        }
+        try {
+            downloadArchive();
+        } catch (DownloadException e) {
+            throw new InstallationException("Could not download corepack", e);
+        }
+    }
+
     private boolean corepackIsAlreadyInstalled() {
         try {
             final File corepackPackageJson = new File(
@@ -121,20 +148,13 @@ public class CorepackInstaller {
     private void installCorepack() throws InstallationException {
         try {
             this.logger.info("Installing corepack version {}", this.corepackVersion);
-            String corepackVersionClean = this.corepackVersion.replaceFirst("^v(?=[0-9]+)", "");
-            final String downloadUrl = this.corepackDownloadRoot + "corepack-" + corepackVersionClean + ".tgz";
-
-            CacheDescriptor cacheDescriptor = new CacheDescriptor("corepack", corepackVersionClean, "tar.gz");
-
-            File archive = this.config.getCacheResolver().resolve(cacheDescriptor);
-
-            downloadFileIfMissing(downloadUrl, archive, this.userName, this.password, this.httpHeaders);
+            File archive = downloadArchive();
 
             File installDirectory = getNodeInstallDirectory();
             File nodeModulesDirectory = new File(installDirectory, "node_modules");
 
             // We need to delete the existing corepack directory first so we clean out any old files, and
-            // so we can rename the package directory below.
+            // so the package is not extracted on top of them.
             File oldDirectory = new File(installDirectory, "corepack");
             File corepackDirectory = new File(nodeModulesDirectory, "corepack");
             try {
@@ -146,9 +166,13 @@ public class CorepackInstaller {
                 this.logger.warn("Failed to delete existing corepack installation.");
             }
 
-            File packageDirectory = new File(nodeModulesDirectory, "package");
             try {
-                extractFile(archive, nodeModulesDirectory);
+                // registry tarballs have their content in package/, which is written straight to corepack/
+                // instead of being renamed (or copied) afterwards. Archives from the old download root
+                // (nodejs.org/dist/npm) already use the right directory name.
+                // see https://github.com/eirslett/frontend-maven-plugin/issues/65#issuecomment-52024254
+                extractFile(archive, nodeModulesDirectory,
+                    name -> name.startsWith(PACKAGE_PATH) ? "corepack/" + name.substring(PACKAGE_PATH.length()) : name);
             } catch (ArchiveExtractionException e) {
                 if (e.getCause() instanceof EOFException) {
                     // https://github.com/eirslett/frontend-maven-plugin/issues/794
@@ -157,24 +181,14 @@ public class CorepackInstaller {
                     this.logger.error("The archive file {} is corrupted and will be deleted. "
                             + "Please try the build again.", archive.getPath());
                     archive.delete();
-                    if (packageDirectory.exists()) {
-                        FileUtils.deleteDirectory(packageDirectory);
+                    if (corepackDirectory.exists()) {
+                        FileUtils.deleteDirectory(corepackDirectory);
                     }
                 }
 
                 throw e;
             }
 
-            // handles difference between old and new download root (nodejs.org/dist/npm and
-            // registry.npmjs.org)
-            // see https://github.com/eirslett/frontend-maven-plugin/issues/65#issuecomment-52024254
-            if (packageDirectory.exists() && !corepackDirectory.exists()) {
-                if (!packageDirectory.renameTo(corepackDirectory)) {
-                    this.logger.warn("Cannot rename corepack directory, making a copy.");
-                    FileUtils.copyDirectory(packageDirectory, corepackDirectory);
-                }
-            }
-
             this.logger.info("Installed corepack locally.");
 
         } catch (DownloadException e) {
@@ -186,6 +200,21 @@ public class CorepackInstaller {
         }
     }
 
+    private File downloadArchive() throws DownloadException {
+        if (this.corepackDownloadRoot == null || this.corepackDownloadRoot.isEmpty()) {
+            this.corepackDownloadRoot = DEFAULT_COREPACK_DOWNLOAD_ROOT;
+        }
+        String corepackVersionClean = this.corepackVersion.replaceFirst("^v(?=[0-9]+)", "");
+        final String downloadUrl = this.corepackDownloadRoot + "corepack-" + corepackVersionClean + ".tgz";
+
+        CacheDescriptor cacheDescriptor = new CacheDescriptor("corepack", corepackVersionClean, "tar.gz");
+
+        File archive = this.config.getCacheResolver().resolve(cacheDescriptor);
+
+        downloadFileIfMissing(downloadUrl, archive, corepackVersionClean, this.userName, this.password, this.httpHeaders);
+        return archive;
+    }
+
     private void linkExecutable() throws InstallationException{
         File nodeInstallDirectory = getNodeInstallDirectory();
         File corepackExecutable = new File(nodeInstallDirectory, "corepack");
@@ -264,21 +293,29 @@ public class CorepackInstaller {
         return installDirectory;
     }
 
-    private void extractFile(File archive, File destinationDirectory) throws ArchiveExtractionException {
+    private void extractFile(File archive, File destinationDirectory, Function<String, String> entryMapping)
+        throws ArchiveExtractionException {
         this.logger.info("Unpacking {} into {}", archive, destinationDirectory);
-        this.archiveExtractor.extract(archive.getPath(), destinationDirectory.getPath());
+        this.archiveExtractor.extract(archive.getPath(), destinationDirectory.getPath(), entryMapping);
     }
 
-    private void downloadFileIfMissing(String downloadUrl, File destination, String userName, String password, Map<String, String> httpHeaders)
-        throws DownloadException {
-        if (!destination.exists()) {
-            downloadFile(downloadUrl, destination, userName, password, httpHeaders);
+    private void downloadFileIfMissing(String downloadUrl, File destination, String version, String userName, String password,
+        Map<String, String> httpHeaders) throws DownloadException {
+        try (InstallLocks.Lock lock = InstallLocks.lockFile(destination)) {
+            if (Checksum.isVerified(destination)) {
+                return;
+            }
+            Checksum checksum = this.checksumResolver.getPackageChecksum(this.corepackDownloadRoot, "corepack", version,
+                userName, password, httpHeaders);
+            if (!destination.exists() || !ChecksumResolver.isIntact(destination, checksum)) {
+                downloadFile(downloadUrl, destination, userName, password, httpHeaders, checksum);
+            }
         }
     }
 
-    private void downloadFile(String downloadUrl, File destination, String userName, String password, Map<String, String> httpHeaders)
-        throws DownloadException {
+    private void downloadFile(String downloadUrl, File destination, String userName, String password, Map<String, String> httpHeaders,
+        Checksum checksum) throws DownloadException {
         this.logger.info("Downloading {} to {}", downloadUrl, destination);
-        this.fileDownloader.download(downloadUrl, destination.getPath(), userName, password, httpHeaders);
+        this.fileDownloader.download(downloadUrl, destination.getPath(), userName, password, httpHeaders, 1, checksum);
     }
 }
@@ -2,15 +2,40 @@ package com.github.eirslett.maven.plugins.frontend.lib;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
 
-import org.apache.commons.io.IOUtils;
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
 import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
 import org.apache.http.auth.AuthScope;
 import org.apache.http.auth.UsernamePasswordCredentials;
 import org.apache.http.client.AuthCache;
@@ -18,6 +43,8 @@ import org.apache.http.client.CredentialsProvider;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpHead;
+import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.client.protocol.HttpClientContext;
 import org.apache.http.impl.auth.BasicScheme;
 import org.apache.http.impl.client.BasicAuthCache;
@@ -40,46 +67,514 @@ final class DownloadException extends Exception {
 }
 
 interface FileDownloader {
-    void download(String downloadUrl, String destination, String userName, String password, Map<String, String> header) throws DownloadException;
+    default void download(String downloadUrl, String destination, String userName, String password,
+            Map<String, String> header) throws DownloadException {
+        download(downloadUrl, destination, userName, password, header, 1, null);
+    }
+
+    /**
+     * Downloads the file over up to {@code connections} concurrent ranged requests. Implementations
+     * that can't split a download fall back to a single connection. If a checksum is given, a file that
+     * doesn't match it is never put in place, and a matching one is recorded as verified.
+     */
+    void download(String downloadUrl, String destination, String userName, String password,
+            Map<String, String> header, int connections, Checksum checksum) throws DownloadException;
 }
 
 final class DefaultFileDownloader implements FileDownloader {
     private static final Logger LOGGER = LoggerFactory.getLogger(FileDownloader.class);
 
+    /**
+     * Size of the buffer used to stream the response body to disk, so heap usage doesn't depend on
+     * the size of the downloaded archive.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final String PART_SUFFIX = ".part";
+
+    private static final String VALIDATOR_SUFFIX = ".part.validator";
+
+    /**
+     * How many times an interrupted download is resumed before giving up.
+     */
+    private static final int MAX_ATTEMPTS = 3;
+
+    /**
+     * Files are not split into more segments than would leave each of them at least this big.
+     */
+    private static final long MIN_SEGMENT_SIZE = 1024 * 1024;
+
+    /**
+     * Upper bound for connections to a single host, which is reached with segmented downloads.
+     */
+    private static final int MAX_CONNECTIONS_PER_ROUTE = 16;
+
+    private static final int MAX_CONNECTIONS_TOTAL = 64;
+
+    private static final long MAX_IDLE_SECONDS = 30;
+
     private final ProxyConfig proxyConfig;
 
-    public DefaultFileDownloader(ProxyConfig proxyConfig){
+    private final HttpClientCache httpClientCache;
+
+    public DefaultFileDownloader(ProxyConfig proxyConfig, HttpClientCache httpClientCache){
         this.proxyConfig = proxyConfig;
+        this.httpClientCache = httpClientCache;
     }
 
     @Override
-    public void download(String downloadUrl, String destination, String userName, String password, Map<String, String> httpHeaders) throws DownloadException {
+    public void download(String downloadUrl, String destination, String userName, String password,
+            Map<String, String> httpHeaders, int connections, Checksum checksum) throws DownloadException {
         String fixedDownloadUrl = downloadUrl;
         try {
             fixedDownloadUrl = FilenameUtils.separatorsToUnix(fixedDownloadUrl);
             URI downloadURI = new URI(fixedDownloadUrl);
             if ("file".equalsIgnoreCase(downloadURI.getScheme())) {
-                FileUtils.copyFile(new File(downloadURI), new File(destination));
+                copy(new File(downloadURI), new File(destination), checksum);
+            }
+            else if (connections > 1) {
+                downloadSegmented(fixedDownloadUrl, new File(destination), userName, password, httpHeaders, connections, checksum);
             }
             else {
-                CloseableHttpResponse response = execute(fixedDownloadUrl, userName, password, httpHeaders);
-                int statusCode = response.getStatusLine().getStatusCode();
-                if(statusCode != 200){
-                    throw new DownloadException("Got error code "+ statusCode +" from the server.");
-                }
-                
-                byte[] data = IOUtils.toByteArray(response.getEntity().getContent());
-                new File(FilenameUtils.getFullPathNoEndSeparator(destination)).mkdirs();
-                FileUtils.writeByteArrayToFile(new File(destination), data);
+                downloadResumable(fixedDownloadUrl, new File(destination), userName, password, httpHeaders, checksum);
+            }
+            if (checksum != null) {
+                checksum.markVerified(new File(destination));
             }
         } catch (IOException | URISyntaxException e) {
             throw new DownloadException("Could not download " + fixedDownloadUrl, e);
         }
     }
 
-    private CloseableHttpResponse execute(String requestUrl, String userName, String password, Map<String, String> httpHeaders) throws IOException {
-        final HttpGet request = new HttpGet(requestUrl);
+    /**
+     * Puts a file of a local (or mounted) mirror into the cache without copying its content where possible:
+     * as a hard link on the same file system, or else as a symbolic link to the mirror, which is treated as
+     * read-only. If neither can be created, like on Windows without the privilege for symbolic links, the
+     * file is copied with {@link FileChannel#transferTo}, which leaves the copying to the operating system,
+     * or through a buffer if it has to be hashed anyway.
+     * <p>
+     * A linked file is only hashed if the mirror has no marker that it was verified against the same
+     * checksum, which costs one read of the file.
+     */
+    private void copy(File source, File destination, Checksum checksum) throws IOException, DownloadException {
+        destination.getAbsoluteFile().getParentFile().mkdirs();
+        Path sourcePath = source.toPath().toAbsolutePath();
+        Path partFile = Paths.get(destination.getPath() + PART_SUFFIX);
+        Files.deleteIfExists(partFile);
+        if (link(sourcePath, partFile)) {
+            if (checksum != null && !checksum.wasVerified(source)) {
+                MessageDigest digest = checksum.newDigest();
+                try (InputStream in = Files.newInputStream(partFile)) {
+                    writeToFile(in, null, false, digest);
+                }
+                verify(checksum, digest, source.toString(), partFile, null);
+            }
+        } else if (checksum != null) {
+            MessageDigest digest = checksum.newDigest();
+            try (InputStream in = Files.newInputStream(sourcePath)) {
+                writeToFile(in, partFile, false, digest);
+            }
+            verify(checksum, digest, source.toString(), partFile, null);
+        } else {
+            try (FileChannel in = FileChannel.open(sourcePath, StandardOpenOption.READ);
+                 FileChannel out = FileChannel.open(partFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+                long size = in.size();
+                long position = 0;
+                while (position < size) {
+                    position += in.transferTo(position, size - position, out);
+                }
+            }
+        }
+        moveIntoPlace(partFile, destination.toPath());
+    }
+
+    private static boolean link(Path source, Path link) {
+        try {
+            Files.createLink(link, source);
+            return true;
+        } catch (IOException | UnsupportedOperationException | SecurityException e) {
+            LOGGER.debug("Could not create a hard link to {}: {}", source, e.toString());
+        }
+        try {
+            Files.createSymbolicLink(link, source);
+            return true;
+        } catch (IOException | UnsupportedOperationException | SecurityException e) {
+            LOGGER.debug("Could not create a symbolic link to {}, copying it instead: {}", source, e.toString());
+            return false;
+        }
+    }
+
+    /**
+     * Downloads into a {@code .part} file next to the destination and moves it into place once it is
+     * complete, so a partially written file is never visible under the destination name. If the transfer
+     * breaks off, the partial file is kept together with the ETag (or Last-Modified date) of the response,
+     * and the download is resumed with a ranged request, both right away and in later builds.
+     */
+    private void downloadResumable(String downloadUrl, File destination, String userName, String password,
+            Map<String, String> httpHeaders, Checksum checksum) throws IOException, DownloadException {
+        destination.getAbsoluteFile().getParentFile().mkdirs();
+        Path partFile = Paths.get(destination.getPath() + PART_SUFFIX);
+        Path validatorFile = Paths.get(destination.getPath() + VALIDATOR_SUFFIX);
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                MessageDigest digest = checksum != null ? checksum.newDigest() : null;
+                if (fetch(downloadUrl, partFile, validatorFile, userName, password, httpHeaders, digest)) {
+                    verify(checksum, digest, downloadUrl, partFile, validatorFile);
+                    moveIntoPlace(partFile, destination.toPath());
+                    Files.deleteIfExists(validatorFile);
+                    return;
+                }
+            } catch (IOException e) {
+                if (!Files.isRegularFile(validatorFile)) {
+                    // without a validator we can't know whether the content changes in between
+                    Files.deleteIfExists(partFile);
+                    throw e;
+                }
+                if (attempt >= MAX_ATTEMPTS) {
+                    LOGGER.warn("Keeping {} bytes of {} to resume the download in the next build",
+                        Files.size(partFile), downloadUrl);
+                    throw e;
+                }
+                LOGGER.warn("Download of {} was interrupted ({}), resuming", downloadUrl, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Splits the download into byte ranges that are fetched over concurrent connections and written into
+     * a preallocated {@code .part} file at their own offsets. Falls back to a single, resumable connection
+     * if the server doesn't support ranged requests, the file is too small to be worth splitting, a resumable
+     * partial download is already present, or one of the segments fails.
+     */
+    private void downloadSegmented(String downloadUrl, File destination, String userName, String password,
+            Map<String, String> httpHeaders, int connections, Checksum checksum) throws IOException, DownloadException {
+        destination.getAbsoluteFile().getParentFile().mkdirs();
+        Path partFile = Paths.get(destination.getPath() + PART_SUFFIX);
+        Path validatorFile = Paths.get(destination.getPath() + VALIDATOR_SUFFIX);
+        if (Files.isRegularFile(partFile) && Files.isRegularFile(validatorFile)) {
+            downloadResumable(downloadUrl, destination, userName, password, httpHeaders, checksum);
+            return;
+        }
+
+        long length = -1;
+        String validator = null;
+        try (CloseableHttpResponse response = execute(new HttpHead(downloadUrl), userName, password, httpHeaders)) {
+            Header acceptRanges = response.getFirstHeader(HttpHeaders.ACCEPT_RANGES);
+            Header contentLength = response.getFirstHeader(HttpHeaders.CONTENT_LENGTH);
+            if (response.getStatusLine().getStatusCode() == HttpStatus.SC_OK
+                    && acceptRanges != null && "bytes".equalsIgnoreCase(acceptRanges.getValue())
+                    && contentLength != null) {
+                length = Long.parseLong(contentLength.getValue());
+                validator = getValidator(response);
+            }
+        } catch (NumberFormatException e) {
+            length = -1;
+        }
+
+        int segments = (int) Math.min(connections, length / MIN_SEGMENT_SIZE);
+        if (validator == null || segments < 2) {
+            LOGGER.info("Server doesn't support splitting the download of {}, using a single connection", downloadUrl);
+            downloadResumable(downloadUrl, destination, userName, password, httpHeaders, checksum);
+            return;
+        }
+
+        LOGGER.info("Downloading {} bytes over {} connections", length, segments);
+        long segmentSize = length / segments;
+        SegmentDigest segmentDigest = checksum != null
+            ? new SegmentDigest(checksum.newDigest(), segments, segmentSize, length) : null;
+        ExecutorService executor = Executors.newFixedThreadPool(segmentDigest != null ? segments + 1 : segments);
+        try (FileChannel channel = FileChannel.open(partFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            // preallocate the file by writing its last byte
+            channel.write(ByteBuffer.allocate(1), length - 1);
+
+            List<Future<Void>> futures = new ArrayList<>(segments + 1);
+            for (int i = 0; i < segments; i++) {
+                final int segment = i;
+                final long start = i * segmentSize;
+                final long end = i == segments - 1 ? length - 1 : start + segmentSize - 1;
+                final String ifRange = validator;
+                futures.add(executor.submit(() -> {
+                    fetchSegment(downloadUrl, channel, start, end, ifRange, userName, password, httpHeaders,
+                        position -> {
+                            if (segmentDigest != null) {
+                                segmentDigest.written(segment, position);
+                            }
+                        });
+                    return null;
+                }));
+            }
+            if (segmentDigest != null) {
+                futures.add(executor.submit(() -> {
+                    segmentDigest.hash(channel);
+                    return null;
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException | InterruptedException | IOException e) {
+            executor.shutdownNow();
+            Files.deleteIfExists(partFile);
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+                throw new DownloadException("Download of " + downloadUrl + " was interrupted", e);
+            }
+            Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+            LOGGER.warn("Splitting the download of {} failed ({}), using a single connection",
+                downloadUrl, cause.getMessage());
+            downloadResumable(downloadUrl, destination, userName, password, httpHeaders, checksum);
+            return;
+        } finally {
+            executor.shutdownNow();
+        }
+        if (segmentDigest != null) {
+            verify(checksum, segmentDigest.digest, downloadUrl, partFile, null);
+        }
+        moveIntoPlace(partFile, destination.toPath());
+    }
+
+    /**
+     * Hashes a file that is downloaded in segments while they are being written. A digest has to be fed
+     * in order, so it reads back what has been written of the segment it has got to, from the page cache
+     * rather than the disk, and waits for more where it has caught up. Once the download is complete, only
+     * the end of the last segment is left to hash, rather than the whole file.
+     */
+    private static final class SegmentDigest {
+
+        private final MessageDigest digest;
+
+        private final long[] starts;
+
+        private final long[] written;
+
+        private final long length;
+
+        SegmentDigest(MessageDigest digest, int segments, long segmentSize, long length) {
+            this.digest = digest;
+            this.starts = new long[segments];
+            this.written = new long[segments];
+            for (int i = 0; i < segments; i++) {
+                this.starts[i] = i * segmentSize;
+                this.written[i] = this.starts[i];
+            }
+            this.length = length;
+        }
+
+        synchronized void written(int segment, long position) {
+            this.written[segment] = position;
+            notifyAll();
+        }
+
+        void hash(FileChannel channel) throws IOException, InterruptedException {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            int segment = 0;
+            long position = 0;
+            while (position < this.length) {
+                if (segment + 1 < this.starts.length && position == this.starts[segment + 1]) {
+                    segment++;
+                }
+                long available;
+                synchronized (this) {
+                    while (this.written[segment] <= position) {
+                        wait();
+                    }
+                    available = this.written[segment];
+                }
+                while (position < available) {
+                    buffer.clear();
+                    buffer.limit((int) Math.min(buffer.capacity(), available - position));
+                    int read = channel.read(buffer, position);
+                    if (read < 0) {
+                        throw new IOException("Unexpected end of the file at byte " + position);
+                    }
+                    this.digest.update(buffer.array(), 0, read);
+                    position += read;
+                }
+            }
+        }
+    }
+
+    /**
+     * @param written is told the position up to which the segment has been written
+     */
+    private void fetchSegment(String downloadUrl, FileChannel channel, long start, long end, String validator,
+            String userName, String password, Map<String, String> httpHeaders, LongConsumer written)
+            throws IOException {
+        final HttpGet request = new HttpGet(downloadUrl);
+        request.addHeader(HttpHeaders.RANGE, "bytes=" + start + "-" + end);
+        request.addHeader(HttpHeaders.IF_RANGE, validator);
+        try (CloseableHttpResponse response = execute(request, userName, password, httpHeaders)) {
+            Header contentRange = response.getFirstHeader(HttpHeaders.CONTENT_RANGE);
+            if (response.getStatusLine().getStatusCode() != HttpStatus.SC_PARTIAL_CONTENT || response.getEntity() == null
+                    || contentRange == null || !contentRange.getValue().startsWith("bytes " + start + "-" + end + "/")) {
+                throw new IOException("Server didn't answer with the requested range " + start + "-" + end);
+            }
+            long position = start;
+            try (InputStream in = response.getEntity().getContent()) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    if (position + read > end + 1) {
+                        throw new IOException("Server sent more than the requested range " + start + "-" + end);
+                    }
+                    ByteBuffer data = ByteBuffer.wrap(buffer, 0, read);
+                    while (data.hasRemaining()) {
+                        position += channel.write(data, position);
+                    }
+                    written.accept(position);
+                }
+            }
+            if (position != end + 1) {
+                throw new IOException("Range " + start + "-" + end + " ended after " + (position - start) + " bytes");
+            }
+        }
+    }
+
+    /**
+     * Requests the remainder of the partial file if there is one, or the whole file otherwise.
+     *
+     * The digest, if given, is updated with the complete content of the file, including a partial file
+     * that is resumed.
+     *
+     * @return false if the partial file turned out to be unusable and was deleted, so the download has
+     *         to start over
+     */
+    private boolean fetch(String downloadUrl, Path partFile, Path validatorFile, String userName, String password,
+            Map<String, String> httpHeaders, MessageDigest digest) throws IOException, DownloadException {
+        final HttpGet request = new HttpGet(downloadUrl);
+        long offset = 0;
+        if (Files.isRegularFile(partFile) && Files.isRegularFile(validatorFile)) {
+            offset = Files.size(partFile);
+            String validator = new String(Files.readAllBytes(validatorFile), StandardCharsets.UTF_8).trim();
+            if (offset > 0 && !validator.isEmpty()) {
+                LOGGER.info("Resuming download of {} at byte {}", downloadUrl, offset);
+                request.addHeader(HttpHeaders.RANGE, "bytes=" + offset + "-");
+                request.addHeader(HttpHeaders.IF_RANGE, validator);
+            } else {
+                offset = 0;
+            }
+        }
+
+        try (CloseableHttpResponse response = execute(request, userName, password, httpHeaders)) {
+            int statusCode = response.getStatusLine().getStatusCode();
+            HttpEntity entity = response.getEntity();
+            if (offset > 0 && statusCode == HttpStatus.SC_PARTIAL_CONTENT) {
+                Header contentRange = response.getFirstHeader(HttpHeaders.CONTENT_RANGE);
+                if (entity == null || contentRange == null || !contentRange.getValue().startsWith("bytes " + offset + "-")) {
+                    LOGGER.warn("Server answered with an unexpected range, restarting the download of {}", downloadUrl);
+                    discard(partFile, validatorFile);
+                    return false;
+                }
+                if (digest != null) {
+                    try (InputStream in = Files.newInputStream(partFile)) {
+                        writeToFile(in, null, false, digest);
+                    }
+                }
+                try (InputStream in = entity.getContent()) {
+                    writeToFile(in, partFile, true, digest);
+                }
+                return true;
+            }
+            if (offset > 0 && statusCode == HttpStatus.SC_REQUESTED_RANGE_NOT_SATISFIABLE) {
+                LOGGER.warn("Partial download of {} is no longer valid, restarting the download", downloadUrl);
+                discard(partFile, validatorFile);
+                return false;
+            }
+            if (statusCode != HttpStatus.SC_OK) {
+                throw new DownloadException("Got error code "+ statusCode +" from the server.");
+            }
+            if (entity == null) {
+                throw new DownloadException("Got an empty response from the server.");
+            }
+            if (offset > 0) {
+                LOGGER.info("The content of {} has changed, downloading it again", downloadUrl);
+            }
+            String validator = getValidator(response);
+            if (validator != null) {
+                Files.write(validatorFile, validator.getBytes(StandardCharsets.UTF_8));
+            } else {
+                Files.deleteIfExists(validatorFile);
+            }
+            try (InputStream in = entity.getContent()) {
+                writeToFile(in, partFile, false, digest);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * If-Range only accepts a strong ETag or a Last-Modified date, weak ETags can't be used for resuming.
+     */
+    private static String getValidator(HttpResponse response) {
+        Header eTag = response.getFirstHeader(HttpHeaders.ETAG);
+        if (eTag != null && !eTag.getValue().startsWith("W/")) {
+            return eTag.getValue();
+        }
+        Header lastModified = response.getFirstHeader(HttpHeaders.LAST_MODIFIED);
+        return lastModified != null ? lastModified.getValue() : null;
+    }
+
+    /**
+     * Copies the stream to the file, or just consumes it if no file is given, and updates the digest (if
+     * any) along the way, so the content never has to be read a second time for verification.
+     */
+    private void writeToFile(InputStream in, Path file, boolean append, MessageDigest digest) throws IOException {
+        OpenOption mode = append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING;
+        try (OutputStream out = file != null
+                ? Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, mode)
+                : OutputStream.nullOutputStream()) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                if (digest != null) {
+                    digest.update(buffer, 0, read);
+                }
+                out.write(buffer, 0, read);
+            }
+        }
+    }
+
+    /**
+     * Throws away the downloaded file if it doesn't match the expected checksum, before it is moved into
+     * place.
+     */
+    private void verify(Checksum checksum, MessageDigest digest, String source, Path partFile, Path validatorFile)
+            throws IOException, DownloadException {
+        if (checksum == null) {
+            return;
+        }
+        byte[] actual = digest.digest();
+        if (!checksum.matches(actual)) {
+            Files.deleteIfExists(partFile);
+            if (validatorFile != null) {
+                Files.deleteIfExists(validatorFile);
+            }
+            throw new DownloadException("Checksum mismatch for " + source + ": expected " + checksum
+                + " but got " + Checksum.toHex(actual));
+        }
+    }
+
+    private void discard(Path partFile, Path validatorFile) throws IOException {
+        Files.deleteIfExists(partFile);
+        Files.deleteIfExists(validatorFile);
+    }
+
+    private void moveIntoPlace(Path source, Path destination) throws IOException {
+        try {
+            Files.move(source, destination, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, destination, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private CloseableHttpResponse execute(HttpRequestBase request, String userName, String password, Map<String, String> httpHeaders) throws IOException {
+        final String requestUrl = request.getURI().toString();
         final CredentialsProvider credentialsProvider = new BasicCredentialsProvider();
+        // clients are shared between downloads with the same proxy and credentials
+        final List<Object> clientKey = new ArrayList<>();
 
         final Proxy proxy = proxyConfig.getProxyForUrl(requestUrl);
         if (proxy != null) {
@@ -94,6 +589,7 @@ final class DefaultFileDownloader implements FileDownloader {
                 credentialsProvider.setCredentials(
                     new AuthScope(proxy.host, proxy.port),
                     new UsernamePasswordCredentials(proxy.username, proxy.password));
+                clientKey.addAll(Arrays.asList(proxy.host, proxy.port, proxy.username, proxy.password));
             }
         } else {
             LOGGER.info("No proxy was configured, downloading directly");
@@ -113,13 +609,14 @@ final class DefaultFileDownloader implements FileDownloader {
             credentialsProvider.setCredentials(
                 new AuthScope(targetUrl.getHost(), targetUrl.getPort()),
                 new UsernamePasswordCredentials(userName, password));
+            clientKey.addAll(Arrays.asList(targetUrl.getHost(), targetUrl.getPort(), userName, password));
             final HttpClientContext localContext = makeLocalContext(targetUrl);
 
-            return buildHttpClient(credentialsProvider)
+            return getHttpClient(clientKey, credentialsProvider)
                 .execute(request, localContext);
         }
 
-        return buildHttpClient(credentialsProvider).execute(request);
+        return getHttpClient(clientKey, credentialsProvider).execute(request);
     }
 
     private HttpClientContext makeLocalContext(URL requestUrl) {
@@ -136,10 +633,17 @@ final class DefaultFileDownloader implements FileDownloader {
         return localContext;
     }
 
+    private CloseableHttpClient getHttpClient(List<Object> clientKey, CredentialsProvider credentialsProvider) {
+        return httpClientCache.getClient(clientKey, () -> buildHttpClient(credentialsProvider));
+    }
+
     private CloseableHttpClient buildHttpClient(CredentialsProvider credentialsProvider) {
         return HttpClients.custom()
                 .disableContentCompression()
                 .useSystemProperties()
+                .setMaxConnPerRoute(MAX_CONNECTIONS_PER_ROUTE)
+                .setMaxConnTotal(MAX_CONNECTIONS_TOTAL)
+                .evictIdleConnections(MAX_IDLE_SECONDS, TimeUnit.SECONDS)
                 .setDefaultCredentialsProvider(credentialsProvider)
                 .build();
     }
@@ -1,8 +1,21 @@
 package com.github.eirslett.maven.plugins.frontend.lib;
 
+import java.io.Closeable;
 import java.io.File;
 
-public final class FrontendPluginFactory {
+/**
+ * Creates the installers and runners for a working and install directory. The optional collaborators are
+ * set with the {@code with*} methods, which return a new factory:
+ * <pre>
+ * new FrontendPluginFactory(workingDirectory, installDirectory, cacheResolver)
+ *     .withHttpClientCache(httpClientCache)
+ *     .withInstallRegistry(installRegistry)
+ *     .withMetrics(metrics);
+ * </pre>
+ * Without an {@link HttpClientCache}, the factory creates one of its own when it first downloads, which is
+ * closed with the factory.
+ */
+public final class FrontendPluginFactory implements Closeable {
 
     private static final Platform defaultPlatform = Platform.guess();
     private static final String DEFAULT_CACHE_PATH = "cache";
@@ -10,38 +23,102 @@ public final class FrontendPluginFactory {
     private final File workingDirectory;
     private final File installDirectory;
     private final CacheResolver cacheResolver;
+    private final HttpClientCache httpClientCache;
+    private final InstallRegistry installRegistry;
+    private final File outputFile;
+    private final Metrics metrics;
+
+    private HttpClientCache ownHttpClientCache;
 
     public FrontendPluginFactory(File workingDirectory, File installDirectory){
         this(workingDirectory, installDirectory, getDefaultCacheResolver(installDirectory));
     }
 
     public FrontendPluginFactory(File workingDirectory, File installDirectory, CacheResolver cacheResolver){
+        this(workingDirectory, installDirectory, cacheResolver, null, new InstallRegistry(), null, Metrics.NONE);
+    }
+
+    private FrontendPluginFactory(File workingDirectory, File installDirectory, CacheResolver cacheResolver,
+                                  HttpClientCache httpClientCache, InstallRegistry installRegistry,
+                                  File outputFile, Metrics metrics){
         this.workingDirectory = workingDirectory;
         this.installDirectory = installDirectory;
         this.cacheResolver = cacheResolver;
+        this.httpClientCache = httpClientCache;
+        this.installRegistry = installRegistry;
+        this.outputFile = outputFile;
+        this.metrics = metrics;
+    }
+
+    /**
+     * @param httpClientCache HTTP clients to download with, typically shared by all factories of a build so
+     *                        connections are reused; the caller is responsible for closing it
+     */
+    public FrontendPluginFactory withHttpClientCache(HttpClientCache httpClientCache) {
+        return new FrontendPluginFactory(workingDirectory, installDirectory, cacheResolver, httpClientCache,
+            installRegistry, outputFile, metrics);
+    }
+
+    /**
+     * @param installRegistry the installations done so far, typically shared by all factories of a build so
+     *                        each installation is only checked once; the caller is responsible for closing it
+     */
+    public FrontendPluginFactory withInstallRegistry(InstallRegistry installRegistry) {
+        return new FrontendPluginFactory(workingDirectory, installDirectory, cacheResolver, httpClientCache,
+            installRegistry, outputFile, metrics);
+    }
+
+    /**
+     * @param outputFile where to write the output of the tools that run to, in which case only their errors
+     *                   and a summary are logged; null to log all of their output
+     */
+    public FrontendPluginFactory withOutputFile(File outputFile) {
+        return new FrontendPluginFactory(workingDirectory, installDirectory, cacheResolver, httpClientCache,
+            installRegistry, outputFile, metrics);
+    }
+
+    /**
+     * @param metrics where to record what the downloads, extractions, installations and tasks took, typically
+     *                the module's metrics of the build's {@link BuildMetrics}
+     */
+    public FrontendPluginFactory withMetrics(Metrics metrics) {
+        return new FrontendPluginFactory(workingDirectory, installDirectory, cacheResolver, httpClientCache,
+            installRegistry, outputFile, metrics);
+    }
+
+    /**
+     * Closes the HTTP clients the factory created itself, if any; a cache passed to
+     * {@link #withHttpClientCache} is left open.
+     */
+    @Override
+    public synchronized void close() {
+        if (ownHttpClientCache != null) {
+            ownHttpClientCache.close();
+            ownHttpClientCache = null;
+        }
     }
 
     public BunInstaller getBunInstaller(ProxyConfig proxy) {
-        return new BunInstaller(getInstallConfig(), new DefaultArchiveExtractor(), new DefaultFileDownloader(proxy));
+        return new BunInstaller(getInstallConfig(), getArchiveExtractor(), getFileDownloader(proxy));
     }
     public NodeInstaller getNodeInstaller(ProxyConfig proxy) {
-        return new NodeInstaller(getInstallConfig(), new DefaultArchiveExtractor(), new DefaultFileDownloader(proxy));
+        return new NodeInstaller(getInstallConfig(), getArchiveExtractor(), getFileDownloader(proxy));
     }
 
     public NPMInstaller getNPMInstaller(ProxyConfig proxy) {
-        return new NPMInstaller(getInstallConfig(), new DefaultArchiveExtractor(), new DefaultFileDownloader(proxy));
+        return new NPMInstaller(getInstallConfig(), getArchiveExtractor(), getFileDownloader(proxy));
     }
 
     public CorepackInstaller getCorepackInstaller(ProxyConfig proxy) {
-        return new CorepackInstaller(getInstallConfig(), new DefaultArchiveExtractor(), new DefaultFileDownloader(proxy));
+        return new CorepackInstaller(getInstallConfig(), getArchiveExtractor(), getFileDownloader(proxy));
     }
 
     public PnpmInstaller getPnpmInstaller(ProxyConfig proxy) {
-        return new PnpmInstaller(getInstallConfig(), new DefaultArchiveExtractor(), new DefaultFileDownloader(proxy));
+        return new PnpmInstaller(getInstallConfig(), getArchiveExtractor(), getFileDownloader(proxy));
     }
 
     public YarnInstaller getYarnInstaller(ProxyConfig proxy) {
-        return new YarnInstaller(getInstallConfig(), new DefaultArchiveExtractor(), new DefaultFileDownloader(proxy));
+        return new YarnInstaller(getInstallConfig(), getArchiveExtractor(), getFileDownloader(proxy));
     }
 
     public BowerRunner getBowerRunner(ProxyConfig proxy) {
@@ -96,12 +173,38 @@ public final class FrontendPluginFactory {
         return new DefaultWebpackRunner(getExecutorConfig());
     }
 
+    /**
+     * @param task the name of the task, like "webpack"; outputs are only shared between runs of the same task
+     */
+    public TaskOutputCache getTaskOutputCache(String task) {
+        return new TaskOutputCache(task, getExecutorConfig(), cacheResolver, getArchiveExtractor());
+    }
+
+    private FileDownloader getFileDownloader(ProxyConfig proxy) {
+        return metrics.measure(new DefaultFileDownloader(proxy, getHttpClientCache()));
+    }
+
+    private synchronized HttpClientCache getHttpClientCache() {
+        if (httpClientCache != null) {
+            return httpClientCache;
+        }
+        if (ownHttpClientCache == null) {
+            ownHttpClientCache = new HttpClientCache();
+        }
+        return ownHttpClientCache;
+    }
+
+    private ArchiveExtractor getArchiveExtractor() {
+        return metrics.measure(new DefaultArchiveExtractor());
+    }
+
     private NodeExecutorConfig getExecutorConfig() {
         return new InstallNodeExecutorConfig(getInstallConfig());
     }
 
     private InstallConfig getInstallConfig() {
-        return new DefaultInstallConfig(installDirectory, workingDirectory, cacheResolver, defaultPlatform);
+        return new DefaultInstallConfig(installDirectory, workingDirectory, cacheResolver, defaultPlatform,
+            installRegistry, outputFile, metrics);
     }
 
     private static final CacheResolver getDefaultCacheResolver(File root) {
@@ -0,0 +1,42 @@
+package com.github.eirslett.maven.plugins.frontend.lib;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps pooled HTTP clients around so that installers can reuse connections (and TLS sessions) to the
+ * same download server, instead of building a new client for each download. There is one client per
+ * combination of proxy and credentials. Whoever creates the cache is responsible for closing it.
+ */
+public final class HttpClientCache implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HttpClientCache.class);
+
+    private final ConcurrentMap<List<Object>, CloseableHttpClient> clients = new ConcurrentHashMap<>();
+
+    CloseableHttpClient getClient(List<Object> key, Supplier<CloseableHttpClient> clientFactory) {
+        return clients.computeIfAbsent(key, k -> clientFactory.get());
+    }
+
+    @Override
+    public void close() {
+        List<CloseableHttpClient> openClients = new ArrayList<>(clients.values());
+        clients.clear();
+        for (CloseableHttpClient client : openClients) {
+            try {
+                client.close();
+            } catch (IOException e) {
+                LOGGER.debug("Could not close HTTP client", e);
+            }
+        }
+    }
+}
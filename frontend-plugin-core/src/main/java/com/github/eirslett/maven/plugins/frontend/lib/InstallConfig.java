@@ -7,6 +7,27 @@ public interface InstallConfig {
   File getWorkingDirectory();
   CacheResolver getCacheResolver();
   Platform getPlatform();
+
+  /**
+   * @return the registry of the installations to share them with, by default one for this installation only
+   */
+  default InstallRegistry getInstallRegistry() {
+    return new InstallRegistry();
+  }
+
+  /**
+   * @return the file to write the output of the processes to instead of the log, none by default
+   */
+  default File getOutputFile() {
+    return null;
+  }
+
+  /**
+   * @return where to record the time spent, nowhere by default
+   */
+  default Metrics getMetrics() {
+    return Metrics.NONE;
+  }
 }
 
 final class DefaultInstallConfig implements InstallConfig {
@@ -15,15 +36,24 @@ final class DefaultInstallConfig implements InstallConfig {
   private final File workingDirectory;
   private final CacheResolver cacheResolver;
   private final Platform platform;
-  
+  private final InstallRegistry installRegistry;
+  private final File outputFile;
+  private final Metrics metrics;
+
   public DefaultInstallConfig(File installDirectory,
                               File workingDirectory,
                               CacheResolver cacheResolver,
-                              Platform platform) {
+                              Platform platform,
+                              InstallRegistry installRegistry,
+                              File outputFile,
+                              Metrics metrics) {
     this.installDirectory = installDirectory;
     this.workingDirectory = workingDirectory;
     this.cacheResolver = cacheResolver;
     this.platform = platform;
+    this.installRegistry = installRegistry;
+    this.outputFile = outputFile;
+    this.metrics = metrics;
   }
 
   @Override
@@ -45,4 +75,19 @@ final class DefaultInstallConfig implements InstallConfig {
     return this.platform;
   }
 
+  @Override
+  public InstallRegistry getInstallRegistry() {
+    return this.installRegistry;
+  }
+
+  @Override
+  public File getOutputFile() {
+    return this.outputFile;
+  }
+
+  @Override
+  public Metrics getMetrics() {
+    return this.metrics;
+  }
+
 }
\ No newline at end of file
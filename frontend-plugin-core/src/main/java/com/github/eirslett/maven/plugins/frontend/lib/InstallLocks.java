@@ -0,0 +1,132 @@
+package com.github.eirslett.maven.plugins.frontend.lib;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.FileLockInterruptionException;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Locks for install directories and cached files, so concurrent builds only wait for each other when they
+ * install into the same directory or download the same file. A lock is held within the JVM and, through a
+ * lock file inside the locked directory or next to the locked file, across Maven processes that share the
+ * local repository or install directory.
+ * <p>
+ * An installer holds the lock of its install directory for the whole installation, and only takes the
+ * lock of a cached file while holding that. Cached file locks are never held while acquiring a directory
+ * lock, which keeps the lock order consistent.
+ */
+final class InstallLocks {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(InstallLocks.class);
+
+    private static final String DIRECTORY_LOCK_FILE = ".install.lock";
+
+    private static final String LOCK_SUFFIX = ".lock";
+
+    private static final ConcurrentMap<String, ReentrantLock> LOCKS = new ConcurrentHashMap<>();
+
+    interface Lock extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private InstallLocks() {
+    }
+
+    /**
+     * Locks the directory, creating it if it doesn't exist. Different paths that resolve to the same
+     * directory share a lock.
+     */
+    static Lock lockDirectory(File directory) {
+        return lock(directory, new File(directory, DIRECTORY_LOCK_FILE));
+    }
+
+    /**
+     * Locks the file, which doesn't have to exist yet. Different paths that resolve to the same file share
+     * a lock.
+     */
+    static Lock lockFile(File file) {
+        return lock(file, new File(file.getPath() + LOCK_SUFFIX));
+    }
+
+    private static Lock lock(File file, File lockFile) {
+        final ReentrantLock lock = LOCKS.computeIfAbsent(getKey(file), key -> new ReentrantLock());
+        lock.lock();
+        if (lock.getHoldCount() > 1) {
+            // this thread holds the file lock already
+            return lock::unlock;
+        }
+        FileChannel channel = null;
+        try {
+            lockFile.getAbsoluteFile().getParentFile().mkdirs();
+            channel = FileChannel.open(lockFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            if (tryLock(channel, lockFile) == null) {
+                LOGGER.info("Waiting for another build to release {}", lockFile);
+                channel.lock();
+            }
+        } catch (IOException | RuntimeException e) {
+            // e.g. a read-only directory, or a file system without locks; other processes aren't excluded then
+            LOGGER.debug("Could not lock {}", lockFile, e);
+            close(channel, lockFile);
+            channel = null;
+        }
+        final FileChannel lockedChannel = channel;
+        return () -> {
+            // closing the channel releases the file lock
+            close(lockedChannel, lockFile);
+            lock.unlock();
+        };
+    }
+
+    /**
+     * @return null if another process holds the lock
+     */
+    private static FileLock tryLock(FileChannel channel, File lockFile) throws IOException {
+        boolean waiting = false;
+        while (true) {
+            try {
+                return channel.tryLock();
+            } catch (OverlappingFileLockException e) {
+                // held within this JVM by another copy of this class, like the one loaded for the plugin's build
+                // extension; file locks can't wait for those, so this polls
+                if (!waiting) {
+                    LOGGER.info("Waiting for another thread to release {}", lockFile);
+                    waiting = true;
+                }
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw new FileLockInterruptionException();
+                }
+            }
+        }
+    }
+
+    private static void close(FileChannel channel, File lockFile) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                LOGGER.debug("Could not release {}", lockFile, e);
+            }
+        }
+    }
+
+    private static String getKey(File file) {
+        try {
+            return file.getCanonicalPath();
+        } catch (IOException e) {
+            return file.getAbsolutePath();
+        }
+    }
+}
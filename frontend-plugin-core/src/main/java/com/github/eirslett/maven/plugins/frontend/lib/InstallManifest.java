@@ -0,0 +1,89 @@
+package com.github.eirslett.maven.plugins.frontend.lib;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Properties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Records which version of a tool was installed, next to its binary, so later builds can tell whether
+ * the installation is up to date without running the binary. The record is only trusted as long as the
+ * binary has the size and modification time it had at install time.
+ */
+final class InstallManifest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(InstallManifest.class);
+
+    private static final String VERSION = "version";
+
+    private static final String CLASSIFIER = "classifier";
+
+    private static final String SIZE = "size";
+
+    private static final String LAST_MODIFIED = "lastModified";
+
+    private InstallManifest() {
+    }
+
+    /**
+     * @return the installed version of the binary, or null if it isn't known and has to be determined by
+     *         running the binary
+     */
+    static String readVersion(File binary, String classifier) {
+        Properties properties = read(binary);
+        return properties != null && classifier.equals(properties.getProperty(CLASSIFIER))
+            ? properties.getProperty(VERSION) : null;
+    }
+
+    /**
+     * @return the installed version and platform classifier of the binary, or null if they aren't known
+     */
+    static String describe(File binary) {
+        Properties properties = read(binary);
+        return properties != null
+            ? properties.getProperty(VERSION) + " " + properties.getProperty(CLASSIFIER) : null;
+    }
+
+    private static Properties read(File binary) {
+        File manifest = getManifest(binary);
+        if (!manifest.isFile()) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(manifest.toPath())) {
+            properties.load(in);
+        } catch (IOException e) {
+            LOGGER.debug("Could not read {}", manifest, e);
+            return null;
+        }
+        boolean unchanged = String.valueOf(binary.length()).equals(properties.getProperty(SIZE))
+            && String.valueOf(binary.lastModified()).equals(properties.getProperty(LAST_MODIFIED));
+        return unchanged ? properties : null;
+    }
+
+    static void write(File binary, String version, String classifier) {
+        Properties properties = new Properties();
+        properties.setProperty(VERSION, version);
+        properties.setProperty(CLASSIFIER, classifier);
+        properties.setProperty(SIZE, String.valueOf(binary.length()));
+        properties.setProperty(LAST_MODIFIED, String.valueOf(binary.lastModified()));
+        File manifest = getManifest(binary);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            properties.store(out, null);
+            Utils.writeAtomically(manifest.toPath(), out.toByteArray());
+        } catch (IOException e) {
+            // only costs a process launch in the next build
+            LOGGER.debug("Could not write {}", manifest, e);
+        }
+    }
+
+    private static File getManifest(File binary) {
+        return new File(binary.getParentFile(), "." + binary.getName() + ".installed");
+    }
+}
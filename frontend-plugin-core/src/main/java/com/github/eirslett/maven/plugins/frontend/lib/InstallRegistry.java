@@ -0,0 +1,111 @@
+package com.github.eirslett.maven.plugins.frontend.lib;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Remembers which version of each tool was installed (or found to be installed already) in which directory,
+ * so that every module of a build that installs the same version into the same directory doesn't have to take
+ * the install lock and check the installation again. Modules that install into the same directory at the same
+ * time wait for the one installation in progress. It also remembers which files couldn't be downloaded, like
+ * the checksums a mirror doesn't publish, so they aren't requested again by every module. Whoever creates the
+ * registry decides how long it lives, typically one build.
+ */
+public final class InstallRegistry implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(InstallRegistry.class);
+
+    private final ConcurrentMap<String, InstalledVersion> installations = new ConcurrentHashMap<>();
+
+    private final Set<String> failedDownloads = ConcurrentHashMap.newKeySet();
+
+    interface Installation {
+        void install() throws InstallationException;
+    }
+
+    /**
+     * Runs the installation, unless the same version of the tool was the last one installed into the directory
+     * through this registry. If another thread is installing the tool into the directory right now, waits for
+     * that thread first; if that installation fails, or installed another version, this one is run.
+     */
+    void install(String tool, String version, File directory, Metrics metrics, Installation installation)
+            throws InstallationException {
+        String key = tool + " " + getPath(directory);
+        long start = System.nanoTime();
+        while (true) {
+            InstalledVersion ownInstallation = new InstalledVersion(version);
+            InstalledVersion installed = this.installations.putIfAbsent(key, ownInstallation);
+            if (installed == null) {
+                try {
+                    installation.install();
+                    ownInstallation.done.complete(null);
+                    metrics.installation(tool, version, System.nanoTime() - start, false);
+                    return;
+                } catch (InstallationException | RuntimeException | Error e) {
+                    this.installations.remove(key, ownInstallation);
+                    ownInstallation.done.completeExceptionally(e);
+                    throw e;
+                }
+            }
+            try {
+                installed.done.join();
+            } catch (CompletionException | CancellationException e) {
+                // the other thread reports its own failure, this one gets a try of its own
+                continue;
+            }
+            // it's cheap to notice that something like a clean removed the installation in the meantime
+            if (installed.version.equals(version) && directory.isDirectory()) {
+                LOGGER.info("{} {} was already installed in {} during this build.", tool, version, directory);
+                metrics.installation(tool, version, System.nanoTime() - start, true);
+                return;
+            }
+            this.installations.remove(key, installed);
+        }
+    }
+
+    /**
+     * Records that the file couldn't be downloaded, so it isn't requested again while the registry lives.
+     */
+    void downloadFailed(String url) {
+        this.failedDownloads.add(url);
+    }
+
+    boolean hasDownloadFailed(String url) {
+        return this.failedDownloads.contains(url);
+    }
+
+    private static String getPath(File directory) {
+        try {
+            return directory.getCanonicalPath();
+        } catch (IOException e) {
+            return directory.getAbsolutePath();
+        }
+    }
+
+    private static final class InstalledVersion {
+
+        private final String version;
+
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        InstalledVersion(String version) {
+            this.version = version;
+        }
+    }
+
+    @Override
+    public void close() {
+        this.installations.clear();
+        this.failedDownloads.clear();
+    }
+}
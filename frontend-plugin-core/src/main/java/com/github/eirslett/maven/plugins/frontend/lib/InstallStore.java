@@ -0,0 +1,146 @@
+package com.github.eirslett.maven.plugins.frontend.lib;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystemException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.UUID;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Extracted archives, shared by all projects that use the same cache. An entry is extracted once per
+ * tool, version and platform classifier, and install directories are populated with hard links to its
+ * files, or symbolic links where hard links are not possible. The linked files are shared, so they must
+ * not be modified in place, and are made read-only where that doesn't keep the links from being deleted.
+ */
+final class InstallStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(InstallStore.class);
+
+    private static final String EXTENSION = "extracted";
+
+    interface Populator {
+        void populate(File directory) throws IOException, ArchiveExtractionException;
+    }
+
+    private final CacheResolver cacheResolver;
+
+    private boolean hardLinks = true;
+
+    private boolean symbolicLinks = true;
+
+    InstallStore(CacheResolver cacheResolver) {
+        this.cacheResolver = cacheResolver;
+    }
+
+    /**
+     * Returns the directory of the entry, populating it first if it doesn't exist yet. Entries are
+     * populated in a staging directory and then renamed, so a partially populated entry is never used,
+     * even by a concurrent build.
+     */
+    File getEntry(String name, String version, String classifier, Populator populator)
+            throws IOException, ArchiveExtractionException {
+        File entry = this.cacheResolver.resolve(new CacheDescriptor(name, version, classifier, EXTENSION));
+        // concurrent builds wait for each other rather than extracting the same entry twice
+        try (InstallLocks.Lock lock = InstallLocks.lockFile(entry)) {
+            if (entry.isDirectory()) {
+                return entry;
+            }
+            File staging = new File(entry.getPath() + "-" + UUID.randomUUID() + ".tmp");
+            try {
+                LOGGER.info("Adding {} {} to the install store at {}", name, version, entry);
+                populator.populate(staging);
+                makeReadOnly(staging.toPath());
+                try {
+                    Files.move(staging.toPath(), entry.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    // populated by a concurrent build in the meantime
+                } catch (FileSystemException e) {
+                    if (!entry.isDirectory()) {
+                        throw e;
+                    }
+                }
+            } finally {
+                if (staging.exists()) {
+                    FileUtils.deleteDirectory(staging);
+                }
+            }
+            return entry;
+        }
+    }
+
+    /**
+     * Makes the files read-only, so writing to them through a link fails rather than changing every install
+     * directory linked to them. Not on Windows, where read-only files can't be deleted, and the links to
+     * them neither.
+     */
+    private static void makeReadOnly(Path directory) throws IOException {
+        if (!FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            return;
+        }
+        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile()) {
+                    file.toFile().setWritable(false, false);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Links the file, or all files below the directory, to the same path relative to the target,
+     * replacing files that are already there.
+     */
+    void link(File source, File target) throws IOException {
+        final Path sourceRoot = source.toPath();
+        final Path targetRoot = target.toPath();
+        Files.walkFileTree(sourceRoot, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                Files.createDirectories(targetRoot.resolve(sourceRoot.relativize(dir).toString()));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                linkFile(file, targetRoot.resolve(sourceRoot.relativize(file).toString()));
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void linkFile(Path source, Path target) throws IOException {
+        Files.deleteIfExists(target);
+        if (this.hardLinks) {
+            try {
+                Files.createLink(target, source);
+                return;
+            } catch (IOException | UnsupportedOperationException e) {
+                LOGGER.info("Cannot create hard links to the install store ({}), using symbolic links", e.toString());
+                this.hardLinks = false;
+            }
+        }
+        if (this.symbolicLinks) {
+            try {
+                Files.createSymbolicLink(target, source.toAbsolutePath());
+                return;
+            } catch (IOException | UnsupportedOperationException e) {
+                LOGGER.info("Cannot create symbolic links to the install store ({}), copying files", e.toString());
+                this.symbolicLinks = false;
+            }
+        }
+        Files.copy(source, target, StandardCopyOption.COPY_ATTRIBUTES);
+    }
+}
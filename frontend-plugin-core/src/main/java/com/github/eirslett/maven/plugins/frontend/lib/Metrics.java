@@ -0,0 +1,122 @@
+package com.github.eirslett.maven.plugins.frontend.lib;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records what the downloads, extractions, installations and tasks of one module took, for the report of
+ * {@link BuildMetrics}. An archive that is extracted without having been downloaded in the build, by any
+ * module or ahead of the build, counts as a cache hit.
+ */
+public final class Metrics {
+
+    /**
+     * Records nothing.
+     */
+    static final Metrics NONE = new Metrics(null, Collections.emptySet());
+
+    private final String module;
+
+    private final List<Event> events = Collections.synchronizedList(new ArrayList<>());
+
+    private final Set<String> downloads;
+
+    /**
+     * @param downloads the archives downloaded in the build so far, shared by all modules
+     */
+    Metrics(String module, Set<String> downloads) {
+        this.module = module;
+        this.downloads = downloads;
+    }
+
+    String getModule() {
+        return module;
+    }
+
+    List<Event> getEvents() {
+        synchronized (events) {
+            return new ArrayList<>(events);
+        }
+    }
+
+    FileDownloader measure(FileDownloader downloader) {
+        if (this == NONE) {
+            return downloader;
+        }
+        return (downloadUrl, destination, userName, password, header, connections, checksum) -> {
+            long start = System.nanoTime();
+            downloader.download(downloadUrl, destination, userName, password, header, connections, checksum);
+            long nanos = System.nanoTime() - start;
+            File file = new File(destination);
+            downloads.add(file.getAbsolutePath());
+            record(new Event(Event.DOWNLOAD, downloadUrl, nanos, file.length(), 0, false, 0));
+        };
+    }
+
+    ArchiveExtractor measure(ArchiveExtractor extractor) {
+        if (this == NONE) {
+            return extractor;
+        }
+        return (archive, destinationDirectory, entryMapping, linkRoot) -> {
+            AtomicLong entries = new AtomicLong();
+            long start = System.nanoTime();
+            extractor.extract(archive, destinationDirectory, name -> {
+                String mapped = entryMapping.apply(name);
+                if (mapped != null) {
+                    entries.incrementAndGet();
+                }
+                return mapped;
+            }, linkRoot);
+            long nanos = System.nanoTime() - start;
+            File file = new File(archive);
+            boolean cacheHit = !downloads.contains(file.getAbsolutePath());
+            record(new Event(Event.EXTRACTION, archive, nanos, file.length(), entries.get(), cacheHit, 0));
+        };
+    }
+
+    /**
+     * @param reused whether another execution of the build installed it already
+     */
+    void installation(String tool, String version, long nanos, boolean reused) {
+        record(new Event(Event.INSTALLATION, tool + " " + version, nanos, 0, 0, reused, 0));
+    }
+
+    void task(String task, long nanos, int exitCode) {
+        record(new Event(Event.TASK, task, nanos, 0, 0, false, exitCode));
+    }
+
+    private void record(Event event) {
+        if (this != NONE) {
+            events.add(event);
+        }
+    }
+
+    static final class Event {
+        static final String DOWNLOAD = "download";
+        static final String EXTRACTION = "extraction";
+        static final String INSTALLATION = "installation";
+        static final String TASK = "task";
+
+        final String type;
+        final String name;
+        final long nanos;
+        final long bytes;
+        final long entries;
+        final boolean cacheHit;
+        final int exitCode;
+
+        Event(String type, String name, long nanos, long bytes, long entries, boolean cacheHit, int exitCode) {
+            this.type = type;
+            this.name = name;
+            this.nanos = nanos;
+            this.bytes = bytes;
+            this.entries = entries;
+            this.cacheHit = cacheHit;
+            this.exitCode = exitCode;
+        }
+    }
+}
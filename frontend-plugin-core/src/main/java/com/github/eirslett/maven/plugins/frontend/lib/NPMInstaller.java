@@ -7,6 +7,7 @@ import java.io.IOException;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Function;
 
 import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
@@ -18,7 +19,7 @@ public class NPMInstaller {
 
     public static final String DEFAULT_NPM_DOWNLOAD_ROOT = "https://registry.npmjs.org/npm/-/";
 
-    private static final Object LOCK = new Object();
+    private static final String PACKAGE_PATH = "package/";
 
     private String nodeVersion, npmVersion, npmDownloadRoot, userName, password;
 
@@ -32,11 +33,15 @@ public class NPMInstaller {
 
     private final FileDownloader fileDownloader;
 
+    private final ChecksumResolver checksumResolver;
+
     NPMInstaller(InstallConfig config, ArchiveExtractor archiveExtractor, FileDownloader fileDownloader) {
         this.logger = LoggerFactory.getLogger(getClass());
         this.config = config;
         this.archiveExtractor = archiveExtractor;
         this.fileDownloader = fileDownloader;
+        this.checksumResolver = new ChecksumResolver(config.getCacheResolver(), fileDownloader,
+            config.getInstallRegistry());
     }
 
     public NPMInstaller setNodeVersion(String nodeVersion) {
@@ -82,11 +87,15 @@ public class NPMInstaller {
     }
 
     public void install() throws InstallationException {
-        // use static lock object for a synchronized block
-        synchronized (LOCK) {
-            if (this.npmDownloadRoot == null || this.npmDownloadRoot.isEmpty()) {
-                this.npmDownloadRoot = DEFAULT_NPM_DOWNLOAD_ROOT;
-            }
+        File nodeDirectory = new File(this.config.getInstallDirectory(), NodeInstaller.INSTALL_PATH);
+        // the other executions of the build that install into the same directory don't check it again
+        this.config.getInstallRegistry().install("npm", this.npmVersion, nodeDirectory,
+            this.config.getMetrics(), () -> installIfMissing(nodeDirectory));
+    }
+
+    private void installIfMissing(File nodeDirectory) throws InstallationException {
+        // installations into other directories, also by other processes, don't have to wait for this one
+        try (InstallLocks.Lock lock = InstallLocks.lockDirectory(nodeDirectory)) {
             if (!npmProvided() && !npmIsAlreadyInstalled()) {
                 installNpm();
             }
@@ -94,6 +103,24 @@ public class NPMInstaller {
         }
     }
 
+    /**
+     * Downloads npm into the cache, so that {@link #install()} only has to extract it. Unlike installing, this
+     * doesn't need Node.js, so it can run while Node.js is being installed. Nothing is downloaded if some
+     * version of npm is installed already; {@link #install()} downloads another version if needed.
+     */
+    public void download() throws InstallationException {
+        final File npmPackageJson = new File(
+            this.config.getInstallDirectory() + Utils.normalize("/node/node_modules/npm/package.json"));
+        if (npmProvided() || npmPackageJson.exists()) {
+            return;
+        }
+        try {
+            downloadArchive();
+        } catch (DownloadException e) {
+            throw new InstallationException("Could not download npm", e);
+        }
+    }
+
     private boolean npmIsAlreadyInstalled() {
         try {
             final File npmPackageJson = new File(
@@ -125,19 +152,13 @@ public class NPMInstaller {
     private void installNpm() throws InstallationException {
         try {
             this.logger.info("Installing npm version {}", this.npmVersion);
-            final String downloadUrl = this.npmDownloadRoot + "npm-" + this.npmVersion + ".tgz";
-
-            CacheDescriptor cacheDescriptor = new CacheDescriptor("npm", this.npmVersion, "tar.gz");
-
-            File archive = this.config.getCacheResolver().resolve(cacheDescriptor);
-
-            downloadFileIfMissing(downloadUrl, archive, this.userName, this.password, this.httpHeaders);
+            File archive = downloadArchive();
 
             File installDirectory = getNodeInstallDirectory();
             File nodeModulesDirectory = new File(installDirectory, "node_modules");
 
             // We need to delete the existing npm directory first so we clean out any old files, and
-            // so we can rename the package directory below.
+            // so the package is not extracted on top of them.
             File oldNpmDirectory = new File(installDirectory, "npm");
             File npmDirectory = new File(nodeModulesDirectory, "npm");
             try {
@@ -149,9 +170,13 @@ public class NPMInstaller {
                 this.logger.warn("Failed to delete existing NPM installation.");
             }
 
-            File packageDirectory = new File(nodeModulesDirectory, "package");
             try {
-                extractFile(archive, nodeModulesDirectory);
+                // registry tarballs have their content in package/, which is written straight to npm/
+                // instead of being renamed (or copied) afterwards. Archives from the old download root
+                // (nodejs.org/dist/npm) already use the right directory name.
+                // see https://github.com/eirslett/frontend-maven-plugin/issues/65#issuecomment-52024254
+                extractFile(archive, nodeModulesDirectory,
+                    name -> name.startsWith(PACKAGE_PATH) ? "npm/" + name.substring(PACKAGE_PATH.length()) : name);
             } catch (ArchiveExtractionException e) {
                 if (e.getCause() instanceof EOFException) {
                     // https://github.com/eirslett/frontend-maven-plugin/issues/794
@@ -160,24 +185,14 @@ public class NPMInstaller {
                     this.logger.error("The archive file {} is corrupted and will be deleted. "
                             + "Please try the build again.", archive.getPath());
                     archive.delete();
-                    if (packageDirectory.exists()) {
-                        FileUtils.deleteDirectory(packageDirectory);
+                    if (npmDirectory.exists()) {
+                        FileUtils.deleteDirectory(npmDirectory);
                     }
                 }
 
                 throw e;
             }
 
-            // handles difference between old and new download root (nodejs.org/dist/npm and
-            // registry.npmjs.org)
-            // see https://github.com/eirslett/frontend-maven-plugin/issues/65#issuecomment-52024254
-            if (packageDirectory.exists() && !npmDirectory.exists()) {
-                if (!packageDirectory.renameTo(npmDirectory)) {
-                    this.logger.warn("Cannot rename NPM directory, making a copy.");
-                    FileUtils.copyDirectory(packageDirectory, npmDirectory);
-                }
-            }
-
             this.logger.info("Installed npm locally.");
         } catch (DownloadException e) {
             throw new InstallationException("Could not download npm", e);
@@ -188,6 +203,20 @@ public class NPMInstaller {
         }
     }
 
+    private File downloadArchive() throws DownloadException {
+        if (this.npmDownloadRoot == null || this.npmDownloadRoot.isEmpty()) {
+            this.npmDownloadRoot = DEFAULT_NPM_DOWNLOAD_ROOT;
+        }
+        final String downloadUrl = this.npmDownloadRoot + "npm-" + this.npmVersion + ".tgz";
+
+        CacheDescriptor cacheDescriptor = new CacheDescriptor("npm", this.npmVersion, "tar.gz");
+
+        File archive = this.config.getCacheResolver().resolve(cacheDescriptor);
+
+        downloadFileIfMissing(downloadUrl, archive, this.userName, this.password, this.httpHeaders);
+        return archive;
+    }
+
     private void copyNpmScripts() throws InstallationException{
         File installDirectory = getNodeInstallDirectory();
 
@@ -222,21 +251,29 @@ public class NPMInstaller {
         return installDirectory;
     }
 
-    private void extractFile(File archive, File destinationDirectory) throws ArchiveExtractionException {
+    private void extractFile(File archive, File destinationDirectory, Function<String, String> entryMapping)
+        throws ArchiveExtractionException {
         this.logger.info("Unpacking {} into {}", archive, destinationDirectory);
-        this.archiveExtractor.extract(archive.getPath(), destinationDirectory.getPath());
+        this.archiveExtractor.extract(archive.getPath(), destinationDirectory.getPath(), entryMapping);
     }
 
     private void downloadFileIfMissing(String downloadUrl, File destination, String userName, String password, Map<String, String> httpHeaders)
         throws DownloadException {
-        if (!destination.exists()) {
-            downloadFile(downloadUrl, destination, userName, password, httpHeaders);
+        try (InstallLocks.Lock lock = InstallLocks.lockFile(destination)) {
+            if (Checksum.isVerified(destination)) {
+                return;
+            }
+            Checksum checksum = this.checksumResolver.getPackageChecksum(this.npmDownloadRoot, "npm", this.npmVersion,
+                userName, password, httpHeaders);
+            if (!destination.exists() || !ChecksumResolver.isIntact(destination, checksum)) {
+                downloadFile(downloadUrl, destination, userName, password, httpHeaders, checksum);
+            }
         }
     }
 
-    private void downloadFile(String downloadUrl, File destination, String userName, String password, Map<String, String> httpHeaders)
-        throws DownloadException {
+    private void downloadFile(String downloadUrl, File destination, String userName, String password, Map<String, String> httpHeaders,
+        Checksum checksum) throws DownloadException {
         this.logger.info("Downloading {} to {}", downloadUrl, destination);
-        this.fileDownloader.download(downloadUrl, destination.getPath(), userName, password, httpHeaders);
+        this.fileDownloader.download(downloadUrl, destination.getPath(), userName, password, httpHeaders, 1, checksum);
     }
 }
@@ -13,6 +13,20 @@ public interface NodeExecutorConfig {
   File getInstallDirectory();
   File getWorkingDirectory();
   Platform getPlatform();
+
+  /**
+   * @return the file to write the output of the processes to instead of the log, none by default
+   */
+  default File getOutputFile() {
+    return null;
+  }
+
+  /**
+   * @return where to record the time spent, nowhere by default
+   */
+  default Metrics getMetrics() {
+    return Metrics.NONE;
+  }
 }
 
 final class InstallNodeExecutorConfig implements NodeExecutorConfig {
@@ -82,4 +96,14 @@ final class InstallNodeExecutorConfig implements NodeExecutorConfig {
   public Platform getPlatform() {
     return installConfig.getPlatform();
   }
+
+  @Override
+  public File getOutputFile() {
+    return installConfig.getOutputFile();
+  }
+
+  @Override
+  public Metrics getMetrics() {
+    return installConfig.getMetrics();
+  }
 }
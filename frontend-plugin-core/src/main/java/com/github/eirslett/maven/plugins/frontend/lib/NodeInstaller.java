@@ -8,6 +8,7 @@ import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
 import java.util.Arrays;
 import java.util.Map;
+import java.util.function.Function;
 
 import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
@@ -17,12 +18,15 @@ public class NodeInstaller {
 
     public static final String INSTALL_PATH = "/node";
 
-    private static final Object LOCK = new Object();
 
     private String npmVersion, nodeVersion, nodeDownloadRoot, userName, password;
     
     private Map<String, String> httpHeaders;
 
+    private int downloadConnections = 1;
+
+    private boolean useInstallStore;
+
     private final Logger logger;
 
     private final InstallConfig config;
@@ -31,11 +35,18 @@ public class NodeInstaller {
 
     private final FileDownloader fileDownloader;
 
+    private final ChecksumResolver checksumResolver;
+
+    private final InstallStore installStore;
+
     NodeInstaller(InstallConfig config, ArchiveExtractor archiveExtractor, FileDownloader fileDownloader) {
         this.logger = LoggerFactory.getLogger(getClass());
         this.config = config;
         this.archiveExtractor = archiveExtractor;
         this.fileDownloader = fileDownloader;
+        this.checksumResolver = new ChecksumResolver(config.getCacheResolver(), fileDownloader,
+            config.getInstallRegistry());
+        this.installStore = new InstallStore(config.getCacheResolver());
     }
 
     public NodeInstaller setNodeVersion(String nodeVersion) {
@@ -68,6 +79,20 @@ public class NodeInstaller {
         return this;
     }
 
+    public NodeInstaller setDownloadConnections(int downloadConnections) {
+        this.downloadConnections = downloadConnections;
+        return this;
+    }
+
+    /**
+     * Link the files of the installation to a copy that is extracted once and shared through the cache,
+     * instead of extracting the archive into every install directory.
+     */
+    public NodeInstaller setUseInstallStore(boolean useInstallStore) {
+        this.useInstallStore = useInstallStore;
+        return this;
+    }
+
     private boolean npmProvided() throws InstallationException {
         if (this.npmVersion != null) {
             if ("provided".equals(this.npmVersion)) {
@@ -83,8 +108,16 @@ public class NodeInstaller {
     }
 
     public void install() throws InstallationException {
-        // use static lock object for a synchronized block
-        synchronized (LOCK) {
+        File nodeDirectory = new File(this.config.getInstallDirectory(), NodeInstaller.INSTALL_PATH);
+        // the other executions of the build that install into the same directory don't check it again
+        String version = "provided".equals(this.npmVersion) ? this.nodeVersion + " with npm" : this.nodeVersion;
+        this.config.getInstallRegistry().install("node", version, nodeDirectory, this.config.getMetrics(),
+            () -> installIfMissing(nodeDirectory));
+    }
+
+    private void installIfMissing(File nodeDirectory) throws InstallationException {
+        // installations into other directories, also by other processes, don't have to wait for this one
+        try (InstallLocks.Lock lock = InstallLocks.lockDirectory(nodeDirectory)) {
             if (this.nodeDownloadRoot == null || this.nodeDownloadRoot.isEmpty()) {
                 this.nodeDownloadRoot = this.config.getPlatform().getNodeDownloadRoot();
             }
@@ -102,17 +135,51 @@ public class NodeInstaller {
                 } else {
                     installNodeDefault();
                 }
+                InstallManifest.write(new InstallNodeExecutorConfig(this.config).getNodePath(), this.nodeVersion,
+                    getClassifier());
             }
         }
     }
 
+    /**
+     * Downloads Node.js into the cache, so that {@link #install()} only has to extract it. Nothing is
+     * downloaded if Node.js is installed already, unless it's known to be another version.
+     */
+    public void download() throws InstallationException {
+        if (this.nodeDownloadRoot == null || this.nodeDownloadRoot.isEmpty()) {
+            this.nodeDownloadRoot = this.config.getPlatform().getNodeDownloadRoot();
+        }
+        File nodeFile = new InstallNodeExecutorConfig(this.config).getNodePath();
+        if (nodeFile.exists()) {
+            String version = InstallManifest.readVersion(nodeFile, getClassifier());
+            if (version == null || version.equals(this.nodeVersion)) {
+                return;
+            }
+        }
+        try {
+            if (this.config.getPlatform().isWindows() && !npmProvided()) {
+                downloadBinary(this.nodeDownloadRoot
+                    + this.config.getPlatform().getNodeDownloadFilename(this.nodeVersion, false));
+            } else {
+                downloadArchive(this.config.getPlatform().isWindows());
+            }
+        } catch (DownloadException e) {
+            throw new InstallationException("Could not download Node.js", e);
+        }
+    }
+
     private boolean nodeIsAlreadyInstalled() {
         try {
             NodeExecutorConfig executorConfig = new InstallNodeExecutorConfig(this.config);
             File nodeFile = executorConfig.getNodePath();
             if (nodeFile.exists()) {
-                final String version =
-                    new NodeExecutor(executorConfig, Arrays.asList("--version"), null).executeAndGetResult(logger);
+                String version = InstallManifest.readVersion(nodeFile, getClassifier());
+                if (version == null) {
+                    version = new NodeExecutor(executorConfig, Arrays.asList("--version"), null).executeAndGetResult(logger);
+                    if (version.equals(this.nodeVersion)) {
+                        InstallManifest.write(nodeFile, version, getClassifier());
+                    }
+                }
 
                 if (version.equals(this.nodeVersion)) {
                     this.logger.info("Node {} is already installed.", version);
@@ -135,21 +202,19 @@ public class NodeInstaller {
         try {
             final String longNodeFilename =
                 this.config.getPlatform().getLongNodeFilename(this.nodeVersion, false);
-            String downloadUrl = this.nodeDownloadRoot
-                + this.config.getPlatform().getNodeDownloadFilename(this.nodeVersion, false);
             String classifier = this.config.getPlatform().getNodeClassifier(this.nodeVersion);
 
             File tmpDirectory = getTempDirectory();
 
-            CacheDescriptor cacheDescriptor = new CacheDescriptor("node", this.nodeVersion, classifier,
-                this.config.getPlatform().getArchiveExtension());
-
-            File archive = this.config.getCacheResolver().resolve(cacheDescriptor);
-
-            downloadFileIfMissing(downloadUrl, archive, this.userName, this.password, this.httpHeaders);
+            File archive = downloadArchive(false);
 
+            // only the binary, and the bundled npm if that is used, are needed from the archive
+            final String nodeBinaryEntry = longNodeFilename + "/bin/node";
+            final String nodeModulesEntry = longNodeFilename + "/lib/node_modules/";
+            final boolean npmProvided = npmProvided();
+            File nodeBinary;
             try {
-                extractFile(archive, tmpDirectory);
+                nodeBinary = unpackNode(archive, classifier, tmpDirectory, nodeBinaryEntry, nodeModulesEntry, npmProvided);
             } catch (ArchiveExtractionException e) {
                 if (e.getCause() instanceof EOFException) {
                     // https://github.com/eirslett/frontend-maven-plugin/issues/794
@@ -165,8 +230,6 @@ public class NodeInstaller {
             }
 
             // Search for the node binary
-            File nodeBinary =
-                new File(tmpDirectory, longNodeFilename + File.separator + "bin" + File.separator + "node");
             if (!nodeBinary.exists()) {
                 throw new FileNotFoundException(
                     "Could not find the downloaded Node.js binary in " + nodeBinary);
@@ -185,17 +248,15 @@ public class NodeInstaller {
                         + nodeBinary + " to " + destination);
                 }
 
-                if (!destination.setExecutable(true, false)) {
+                // a binary linked from the install store is shared, and executable already
+                if (this.useInstallStore ? !destination.canExecute() : !destination.setExecutable(true, false)) {
                     throw new InstallationException(
                         "Could not install Node: Was not allowed to make " + destination + " executable.");
                 }
 
-                if (npmProvided()) {
-                    File tmpNodeModulesDir = new File(tmpDirectory,
-                        longNodeFilename + File.separator + "lib" + File.separator + "node_modules");
+                if (npmProvided) {
                     File nodeModulesDirectory = new File(destinationDirectory, "node_modules");
                     File npmDirectory = new File(nodeModulesDirectory, "npm");
-                    FileUtils.copyDirectory(tmpNodeModulesDir, nodeModulesDirectory);
                     this.logger.info("Extracting NPM");
                     // create a copy of the npm scripts next to the node executable
                     for (String script : Arrays.asList("npm", "npm.cmd", "npx", "npx.cmd")) {
@@ -234,23 +295,16 @@ public class NodeInstaller {
         try {
             final String longNodeFilename =
                 this.config.getPlatform().getLongNodeFilename(this.nodeVersion, true);
-            String downloadUrl = this.nodeDownloadRoot
-                + this.config.getPlatform().getNodeDownloadFilename(this.nodeVersion, true);
             String classifier = this.config.getPlatform().getNodeClassifier(this.nodeVersion);
 
             File tmpDirectory = getTempDirectory();
 
-            CacheDescriptor cacheDescriptor = new CacheDescriptor("node", this.nodeVersion, classifier,
-                this.config.getPlatform().getArchiveExtension());
-
-            File archive = this.config.getCacheResolver().resolve(cacheDescriptor);
-
-            downloadFileIfMissing(downloadUrl, archive, this.userName, this.password, this.httpHeaders);
+            File archive = downloadArchive(true);
 
-            extractFile(archive, tmpDirectory);
+            File nodeBinary = unpackNode(archive, classifier, tmpDirectory, longNodeFilename + "/node.exe",
+                longNodeFilename + "/node_modules/", true);
 
             // Search for the node binary
-            File nodeBinary = new File(tmpDirectory, longNodeFilename + File.separator + "node.exe");
             if (!nodeBinary.exists()) {
                 throw new FileNotFoundException(
                     "Could not find the downloaded Node.js binary in " + nodeBinary);
@@ -266,12 +320,6 @@ public class NodeInstaller {
                         + nodeBinary + " to " + destination);
                 }
 
-                if ("provided".equals(this.npmVersion)) {
-                    File tmpNodeModulesDir =
-                        new File(tmpDirectory, longNodeFilename + File.separator + "node_modules");
-                    File nodeModulesDirectory = new File(destinationDirectory, "node_modules");
-                    FileUtils.copyDirectory(tmpNodeModulesDir, nodeModulesDirectory);
-                }
                 deleteTempDirectory(tmpDirectory);
 
                 this.logger.info("Installed node locally.");
@@ -294,16 +342,11 @@ public class NodeInstaller {
 
             File destination = new File(destinationDirectory, "node.exe");
 
-            String classifier = this.config.getPlatform().getNodeClassifier(this.nodeVersion);
-
-            CacheDescriptor cacheDescriptor =
-                new CacheDescriptor("node", this.nodeVersion, classifier, "exe");
-
-            File binary = this.config.getCacheResolver().resolve(cacheDescriptor);
-
-            downloadFileIfMissing(downloadUrl, binary, this.userName, this.password, this.httpHeaders);
+            File binary = downloadBinary(downloadUrl);
 
             this.logger.info("Copying node binary from {} to {}", binary, destination);
+            // don't write through a link into the install store
+            Files.deleteIfExists(destination.toPath());
             FileUtils.copyFile(binary, destination);
 
             this.logger.info("Installed node locally.");
@@ -314,6 +357,36 @@ public class NodeInstaller {
         }
     }
 
+    /**
+     * @param windows whether to download the Windows archive, which has another layout
+     */
+    private File downloadArchive(boolean windows) throws DownloadException {
+        String downloadUrl = this.nodeDownloadRoot
+            + this.config.getPlatform().getNodeDownloadFilename(this.nodeVersion, windows);
+
+        CacheDescriptor cacheDescriptor = new CacheDescriptor("node", this.nodeVersion, getClassifier(),
+            this.config.getPlatform().getArchiveExtension());
+
+        File archive = this.config.getCacheResolver().resolve(cacheDescriptor);
+
+        downloadFileIfMissing(downloadUrl, archive, this.userName, this.password, this.httpHeaders);
+        return archive;
+    }
+
+    private File downloadBinary(String downloadUrl) throws DownloadException {
+        CacheDescriptor cacheDescriptor =
+            new CacheDescriptor("node", this.nodeVersion, getClassifier(), "exe");
+
+        File binary = this.config.getCacheResolver().resolve(cacheDescriptor);
+
+        downloadFileIfMissing(downloadUrl, binary, this.userName, this.password, this.httpHeaders);
+        return binary;
+    }
+
+    private String getClassifier() {
+        return this.config.getPlatform().getNodeClassifier(this.nodeVersion);
+    }
+
     private File getTempDirectory() {
         File tmpDirectory = new File(getInstallDirectory(), "tmp");
         if (!tmpDirectory.exists()) {
@@ -339,21 +412,84 @@ public class NodeInstaller {
         }
     }
 
-    private void extractFile(File archive, File destinationDirectory) throws ArchiveExtractionException {
+    /**
+     * Puts the node binary into the temporary directory and, if requested, the bundled node_modules into
+     * their final location. They are either extracted from the archive, or linked from the install store.
+     *
+     * @return the node binary in the temporary directory
+     */
+    private File unpackNode(File archive, String classifier, File tmpDirectory, String nodeBinaryEntry,
+        String nodeModulesEntry, boolean withNodeModules) throws IOException, ArchiveExtractionException {
+        if (!this.useInstallStore) {
+            extractNode(archive, tmpDirectory, nodeBinaryEntry, withNodeModules ? nodeModulesEntry : null);
+            return new File(tmpDirectory, nodeBinaryEntry);
+        }
+
+        // the store always holds the bundled node_modules, so the entry can be used either way
+        final String binaryName = nodeBinaryEntry.substring(nodeBinaryEntry.lastIndexOf('/') + 1);
+        File storeEntry = this.installStore.getEntry("node", this.nodeVersion, classifier, directory ->
+            extractFile(archive, directory, name -> {
+                if (name.equals(nodeBinaryEntry)) {
+                    return binaryName;
+                } else if (name.startsWith(nodeModulesEntry)) {
+                    return "node_modules/" + name.substring(nodeModulesEntry.length());
+                }
+                return null;
+            }));
+        this.logger.info("Linking node from the install store at {}", storeEntry);
+        File nodeBinary = new File(tmpDirectory, binaryName);
+        this.installStore.link(new File(storeEntry, binaryName), nodeBinary);
+        File storedNodeModules = new File(storeEntry, "node_modules");
+        if (withNodeModules && storedNodeModules.isDirectory()) {
+            this.installStore.link(storedNodeModules, new File(getInstallDirectory(), "node_modules"));
+        }
+        return nodeBinary;
+    }
+
+    /**
+     * Extracts the node binary into the temporary directory, from where it is renamed into place once it is
+     * complete. The bundled node_modules, if requested, are written straight to their final location, so they
+     * don't have to be copied over afterwards.
+     */
+    private void extractNode(File archive, File tmpDirectory, String nodeBinaryEntry, String nodeModulesEntry)
+        throws ArchiveExtractionException {
+        final String tmpPath = tmpDirectory.getName() + "/";
+        extractFile(archive, tmpDirectory.getParentFile(), name -> {
+            if (name.equals(nodeBinaryEntry)) {
+                return tmpPath + name;
+            } else if (nodeModulesEntry != null && name.startsWith(nodeModulesEntry)) {
+                return "node_modules/" + name.substring(nodeModulesEntry.length());
+            }
+            return null;
+        });
+    }
+
+    private void extractFile(File archive, File destinationDirectory, Function<String, String> entryMapping)
+        throws ArchiveExtractionException {
         this.logger.info("Unpacking {} into {}", archive, destinationDirectory);
-        this.archiveExtractor.extract(archive.getPath(), destinationDirectory.getPath());
+        this.archiveExtractor.extract(archive.getPath(), destinationDirectory.getPath(), entryMapping);
     }
 
     private void downloadFileIfMissing(String downloadUrl, File destination, String userName, String password, 
             Map<String, String> httpHeaders) throws DownloadException {
-        if (!destination.exists()) {
-            downloadFile(downloadUrl, destination, userName, password, httpHeaders);
+        try (InstallLocks.Lock lock = InstallLocks.lockFile(destination)) {
+            if (Checksum.isVerified(destination)) {
+                return;
+            }
+            // SHASUMS256.txt lists the files relative to the release directory
+            String downloadFilename = downloadUrl.substring((this.nodeDownloadRoot + this.nodeVersion + "/").length());
+            Checksum checksum = this.checksumResolver.getNodeChecksum(this.nodeDownloadRoot, this.nodeVersion,
+                downloadFilename, userName, password, httpHeaders);
+            if (!destination.exists() || !ChecksumResolver.isIntact(destination, checksum)) {
+                downloadFile(downloadUrl, destination, userName, password, httpHeaders, checksum);
+            }
         }
     }
 
     private void downloadFile(String downloadUrl, File destination, String userName, String password, 
-            Map<String, String> httpHeaders) throws DownloadException {
+            Map<String, String> httpHeaders, Checksum checksum) throws DownloadException {
         this.logger.info("Downloading {} to {}", downloadUrl, destination);
-        this.fileDownloader.download(downloadUrl, destination.getPath(), userName, password, httpHeaders);
+        this.fileDownloader.download(downloadUrl, destination.getPath(), userName, password, httpHeaders,
+            this.downloadConnections, checksum);
     }
 }
@@ -60,20 +60,26 @@ abstract class NodeTaskExecutor {
         final List<String> arguments = getArguments(args);
         logger.info("Running " + taskToString(taskName, arguments) + " in " + config.getWorkingDirectory());
 
+        final long start = System.nanoTime();
+        // stays -1 if the process couldn't be run
+        int result = -1;
         try {
-            Map<String, String> internalEnvironment = new HashMap<>();
-            if (environment != null && !environment.isEmpty()) {
-                internalEnvironment.putAll(environment);
-            }
+            Map<String, String> internalEnvironment = environment;
             if (!proxy.isEmpty()) {
+                internalEnvironment = new HashMap<>();
+                if (environment != null) {
+                    internalEnvironment.putAll(environment);
+                }
                 internalEnvironment.putAll(proxy);
             }
-            final int result = new NodeExecutor(config, prepend(absoluteTaskLocation, arguments), internalEnvironment ).executeAndRedirectOutput(logger);
+            result = new NodeExecutor(config, prepend(absoluteTaskLocation, arguments), internalEnvironment ).executeAndRedirectOutput(logger, config.getOutputFile());
             if (result != 0) {
                 throw new TaskRunnerException(taskToString(taskName, arguments) + " failed. (error code " + result + ")");
             }
         } catch (ProcessExecutionException e) {
             throw new TaskRunnerException(taskToString(taskName, arguments) + " failed.", e);
+        } finally {
+            config.getMetrics().task(taskName, System.nanoTime() - start, result);
         }
     }
 
@@ -95,7 +101,7 @@ abstract class NodeTaskExecutor {
         return argumentsParser.parse(args);
     }
 
-    private static String taskToString(String taskName, List<String> arguments) {
+    static String taskToString(String taskName, List<String> arguments) {
         List<String> clonedArguments = new ArrayList<String>(arguments);
         for (int i = 0; i < clonedArguments.size(); i++) {
             final String s = clonedArguments.get(i);
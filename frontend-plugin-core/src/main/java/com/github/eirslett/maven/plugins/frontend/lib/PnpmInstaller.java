@@ -10,6 +10,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Function;
 
 public class PnpmInstaller {
 
@@ -17,7 +18,7 @@ public class PnpmInstaller {
 
     public static final String DEFAULT_PNPM_DOWNLOAD_ROOT = "https://registry.npmjs.org/pnpm/-/";
 
-    private static final Object LOCK = new Object();
+    private static final String PACKAGE_PATH = "package/";
 
     private String pnpmVersion, pnpmDownloadRoot, userName, password;
     
@@ -31,11 +32,15 @@ public class PnpmInstaller {
 
     private final FileDownloader fileDownloader;
 
+    private final ChecksumResolver checksumResolver;
+
     PnpmInstaller(InstallConfig config, ArchiveExtractor archiveExtractor, FileDownloader fileDownloader) {
         this.logger = LoggerFactory.getLogger(getClass());
         this.config = config;
         this.archiveExtractor = archiveExtractor;
         this.fileDownloader = fileDownloader;
+        this.checksumResolver = new ChecksumResolver(config.getCacheResolver(), fileDownloader,
+            config.getInstallRegistry());
     }
 
     public PnpmInstaller setNodeVersion(String nodeVersion) {
@@ -68,11 +73,15 @@ public class PnpmInstaller {
     }
 
     public void install() throws InstallationException {
-        // use static lock object for a synchronized block
-        synchronized (LOCK) {
-            if (this.pnpmDownloadRoot == null || this.pnpmDownloadRoot.isEmpty()) {
-                this.pnpmDownloadRoot = DEFAULT_PNPM_DOWNLOAD_ROOT;
-            }
+        File nodeDirectory = new File(this.config.getInstallDirectory(), NodeInstaller.INSTALL_PATH);
+        // the other executions of the build that install into the same directory don't check it again
+        this.config.getInstallRegistry().install("pnpm", this.pnpmVersion, nodeDirectory,
+            this.config.getMetrics(), () -> installIfMissing(nodeDirectory));
+    }
+
+    private void installIfMissing(File nodeDirectory) throws InstallationException {
+        // installations into other directories, also by other processes, don't have to wait for this one
+        try (InstallLocks.Lock lock = InstallLocks.lockDirectory(nodeDirectory)) {
             if (!pnpmIsAlreadyInstalled()) {
                 installPnpm();
             }
@@ -85,6 +94,24 @@ public class PnpmInstaller {
         }
     }
 
+    /**
+     * Downloads pnpm into the cache, so that {@link #install()} only has to extract it. Unlike installing, this
+     * doesn't need Node.js, so it can run while Node.js is being installed. Nothing is downloaded if some
+     * version of pnpm is installed already; {@link #install()} downloads another version if needed.
+     */
+    public void download() throws InstallationException {
+        final File pnpmPackageJson = new File(
+            this.config.getInstallDirectory() + Utils.normalize("/node/node_modules/pnpm/package.json"));
+        if (pnpmPackageJson.exists()) {
+            return;
+        }
+        try {
+            downloadArchive();
+        } catch (DownloadException e) {
+            throw new InstallationException("Could not download pnpm", e);
+        }
+    }
+
     private boolean pnpmIsAlreadyInstalled() {
         try {
             final File pnpmPackageJson = new File(
@@ -116,20 +143,13 @@ public class PnpmInstaller {
     private void installPnpm() throws InstallationException {
         try {
             this.logger.info("Installing pnpm version {}", this.pnpmVersion);
-            String pnpmVersionClean = this.pnpmVersion.replaceFirst("^v(?=[0-9]+)", "");
-            final String downloadUrl = this.pnpmDownloadRoot + "pnpm-" + pnpmVersionClean + ".tgz";
-
-            CacheDescriptor cacheDescriptor = new CacheDescriptor("pnpm", pnpmVersionClean, "tar.gz");
-
-            File archive = this.config.getCacheResolver().resolve(cacheDescriptor);
-
-            downloadFileIfMissing(downloadUrl, archive, this.userName, this.password, httpHeaders);
+            File archive = downloadArchive();
 
             File installDirectory = getNodeInstallDirectory();
             File nodeModulesDirectory = new File(installDirectory, "node_modules");
 
             // We need to delete the existing pnpm directory first so we clean out any old files, and
-            // so we can rename the package directory below.
+            // so the package is not extracted on top of them.
             File oldNpmDirectory = new File(installDirectory, "pnpm");
             File pnpmDirectory = new File(nodeModulesDirectory, "pnpm");
             try {
@@ -141,9 +161,13 @@ public class PnpmInstaller {
                 this.logger.warn("Failed to delete existing PNPM installation.");
             }
 
-            File packageDirectory = new File(nodeModulesDirectory, "package");
             try {
-                extractFile(archive, nodeModulesDirectory);
+                // registry tarballs have their content in package/, which is written straight to pnpm/
+                // instead of being renamed (or copied) afterwards. Archives from the old download root
+                // (nodejs.org/dist/npm) already use the right directory name.
+                // see https://github.com/eirslett/frontend-maven-plugin/issues/65#issuecomment-52024254
+                extractFile(archive, nodeModulesDirectory,
+                    name -> name.startsWith(PACKAGE_PATH) ? "pnpm/" + name.substring(PACKAGE_PATH.length()) : name);
             } catch (ArchiveExtractionException e) {
                 if (e.getCause() instanceof EOFException) {
                     // https://github.com/eirslett/frontend-maven-plugin/issues/794
@@ -152,24 +176,14 @@ public class PnpmInstaller {
                     this.logger.error("The archive file {} is corrupted and will be deleted. "
                             + "Please try the build again.", archive.getPath());
                     archive.delete();
-                    if (packageDirectory.exists()) {
-                        FileUtils.deleteDirectory(packageDirectory);
+                    if (pnpmDirectory.exists()) {
+                        FileUtils.deleteDirectory(pnpmDirectory);
                     }
                 }
 
                 throw e;
             }
 
-            // handles difference between old and new download root (nodejs.org/dist/npm and
-            // registry.npmjs.org)
-            // see https://github.com/eirslett/frontend-maven-plugin/issues/65#issuecomment-52024254
-            if (packageDirectory.exists() && !pnpmDirectory.exists()) {
-                if (!packageDirectory.renameTo(pnpmDirectory)) {
-                    this.logger.warn("Cannot rename PNPM directory, making a copy.");
-                    FileUtils.copyDirectory(packageDirectory, pnpmDirectory);
-                }
-            }
-
             this.logger.info("Installed pnpm locally.");
 
         } catch (DownloadException e) {
@@ -181,6 +195,21 @@ public class PnpmInstaller {
         }
     }
 
+    private File downloadArchive() throws DownloadException {
+        if (this.pnpmDownloadRoot == null || this.pnpmDownloadRoot.isEmpty()) {
+            this.pnpmDownloadRoot = DEFAULT_PNPM_DOWNLOAD_ROOT;
+        }
+        String pnpmVersionClean = this.pnpmVersion.replaceFirst("^v(?=[0-9]+)", "");
+        final String downloadUrl = this.pnpmDownloadRoot + "pnpm-" + pnpmVersionClean + ".tgz";
+
+        CacheDescriptor cacheDescriptor = new CacheDescriptor("pnpm", pnpmVersionClean, "tar.gz");
+
+        File archive = this.config.getCacheResolver().resolve(cacheDescriptor);
+
+        downloadFileIfMissing(downloadUrl, archive, pnpmVersionClean, this.userName, this.password, httpHeaders);
+        return archive;
+    }
+
     private void linkExecutable() throws InstallationException{
         File nodeInstallDirectory = getNodeInstallDirectory();
         File pnpmExecutable = new File(nodeInstallDirectory, "pnpm");
@@ -259,21 +288,29 @@ public class PnpmInstaller {
         return installDirectory;
     }
 
-    private void extractFile(File archive, File destinationDirectory) throws ArchiveExtractionException {
+    private void extractFile(File archive, File destinationDirectory, Function<String, String> entryMapping)
+        throws ArchiveExtractionException {
         this.logger.info("Unpacking {} into {}", archive, destinationDirectory);
-        this.archiveExtractor.extract(archive.getPath(), destinationDirectory.getPath());
+        this.archiveExtractor.extract(archive.getPath(), destinationDirectory.getPath(), entryMapping);
     }
 
-    private void downloadFileIfMissing(String downloadUrl, File destination, String userName, String password, Map<String, String> httpHeaders)
-        throws DownloadException {
-        if (!destination.exists()) {
-            downloadFile(downloadUrl, destination, userName, password, httpHeaders);
+    private void downloadFileIfMissing(String downloadUrl, File destination, String version, String userName, String password,
+        Map<String, String> httpHeaders) throws DownloadException {
+        try (InstallLocks.Lock lock = InstallLocks.lockFile(destination)) {
+            if (Checksum.isVerified(destination)) {
+                return;
+            }
+            Checksum checksum = this.checksumResolver.getPackageChecksum(this.pnpmDownloadRoot, "pnpm", version,
+                userName, password, httpHeaders);
+            if (!destination.exists() || !ChecksumResolver.isIntact(destination, checksum)) {
+                downloadFile(downloadUrl, destination, userName, password, httpHeaders, checksum);
+            }
         }
     }
 
-    private void downloadFile(String downloadUrl, File destination, String userName, String password, Map<String, String> httpHeaders)
-        throws DownloadException {
+    private void downloadFile(String downloadUrl, File destination, String userName, String password, Map<String, String> httpHeaders,
+        Checksum checksum) throws DownloadException {
         this.logger.info("Downloading {} to {}", downloadUrl, destination);
-        this.fileDownloader.download(downloadUrl, destination.getPath(), userName, password, httpHeaders);
+        this.fileDownloader.download(downloadUrl, destination.getPath(), userName, password, httpHeaders, 1, checksum);
     }
 }
@@ -0,0 +1,152 @@
+package com.github.eirslett.maven.plugins.frontend.lib;
+
+import java.io.File;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The environment of a process: the environment of this JVM, which doesn't change while it runs and is only
+ * read once, overlaid with the variables of the process, and with the directories of the installed tools in
+ * front of the PATH. Creating one only copies the variables of the process, not the whole environment, and
+ * the extended PATH is computed once for every list of directories.
+ */
+final class ProcessEnvironment extends AbstractMap<String, String> {
+
+    private static final String PATH_ENV_VAR = "PATH";
+
+    private static final Map<String, String> BASE = System.getenv();
+
+    private static final ConcurrentMap<List<String>, String> EXTENDED_PATHS = new ConcurrentHashMap<>();
+
+    private final Map<String, String> overlay;
+
+    private final int size;
+
+    private ProcessEnvironment(Map<String, String> overlay) {
+        this.overlay = overlay;
+        int size = BASE.size();
+        for (String name : overlay.keySet()) {
+            if (!BASE.containsKey(name)) {
+                size++;
+            }
+        }
+        this.size = size;
+    }
+
+    static Map<String, String> create(List<String> paths, Platform platform,
+                                      Map<String, String> additionalEnvironment) {
+        Map<String, String> overlay = additionalEnvironment == null
+                ? new HashMap<>() : new HashMap<>(additionalEnvironment);
+        if (platform.isWindows()) {
+            // environment variable names are case insensitive on Windows
+            List<String> pathNames = new ArrayList<>();
+            for (String name : BASE.keySet()) {
+                if (PATH_ENV_VAR.equalsIgnoreCase(name)) {
+                    pathNames.add(name);
+                }
+            }
+            for (String name : overlay.keySet()) {
+                if (PATH_ENV_VAR.equalsIgnoreCase(name) && !pathNames.contains(name)) {
+                    pathNames.add(name);
+                }
+            }
+            for (String name : pathNames) {
+                overlay.put(name, extendPath(name, overlay, paths));
+            }
+        } else {
+            overlay.put(PATH_ENV_VAR, extendPath(PATH_ENV_VAR, overlay, paths));
+        }
+        return new ProcessEnvironment(overlay);
+    }
+
+    private static String extendPath(String name, Map<String, String> overlay, List<String> paths) {
+        if (overlay.containsKey(name)) {
+            return extendPathVariable(overlay.get(name), paths);
+        }
+        List<String> key = new ArrayList<>(paths.size() + 1);
+        key.add(name);
+        key.addAll(paths);
+        return EXTENDED_PATHS.computeIfAbsent(key, k -> extendPathVariable(BASE.get(name), paths));
+    }
+
+    private static String extendPathVariable(final String existingValue, final List<String> paths) {
+        final StringBuilder pathBuilder = new StringBuilder();
+        for (final String path : paths) {
+            pathBuilder.append(path).append(File.pathSeparator);
+        }
+        if (existingValue != null) {
+            pathBuilder.append(existingValue).append(File.pathSeparator);
+        }
+        return pathBuilder.toString();
+    }
+
+    @Override
+    public String get(Object name) {
+        String value = overlay.get(name);
+        return value != null || overlay.containsKey(name) ? value : BASE.get(name);
+    }
+
+    @Override
+    public boolean containsKey(Object name) {
+        return overlay.containsKey(name) || BASE.containsKey(name);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        return new AbstractSet<Entry<String, String>>() {
+            @Override
+            public Iterator<Entry<String, String>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private final class EntryIterator implements Iterator<Entry<String, String>> {
+        private final Iterator<Entry<String, String>> overlayEntries = overlay.entrySet().iterator();
+        private final Iterator<Entry<String, String>> baseEntries = BASE.entrySet().iterator();
+        private Entry<String, String> next;
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && baseEntries.hasNext()) {
+                Entry<String, String> entry = baseEntries.next();
+                if (!overlay.containsKey(entry.getKey())) {
+                    next = entry;
+                }
+            }
+            if (next == null && overlayEntries.hasNext()) {
+                next = overlayEntries.next();
+            }
+            return next != null;
+        }
+
+        @Override
+        public Entry<String, String> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Entry<String, String> entry = next;
+            next = null;
+            return new SimpleImmutableEntry<>(entry);
+        }
+    }
+}
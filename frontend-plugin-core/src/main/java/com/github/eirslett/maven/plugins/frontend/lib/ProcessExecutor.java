@@ -4,10 +4,8 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.function.Consumer;
 
 import org.apache.commons.exec.CommandLine;
 import org.apache.commons.exec.DefaultExecutor;
@@ -15,7 +13,6 @@ import org.apache.commons.exec.ExecuteException;
 import org.apache.commons.exec.ExecuteStreamHandler;
 import org.apache.commons.exec.ExecuteWatchdog;
 import org.apache.commons.exec.Executor;
-import org.apache.commons.exec.LogOutputStream;
 import org.apache.commons.exec.PumpStreamHandler;
 import org.apache.commons.exec.ShutdownHookProcessDestroyer;
 import org.slf4j.Logger;
@@ -32,8 +29,6 @@ final class ProcessExecutionException extends Exception {
 }
 
 final class ProcessExecutor {
-    private final static String PATH_ENV_VAR = "PATH";
-
     private final Map<String, String> environment;
     private CommandLine commandLine;
     private final Executor executor;
@@ -43,7 +38,7 @@ final class ProcessExecutor {
     }
 
     public ProcessExecutor(File workingDirectory, List<String> paths, List<String> command, Platform platform, Map<String, String> additionalEnvironment, long timeoutInSeconds) {
-        this.environment = createEnvironment(paths, platform, additionalEnvironment);
+        this.environment = ProcessEnvironment.create(paths, platform, additionalEnvironment);
         this.commandLine = createCommandLine(command);
         this.executor = createExecutor(workingDirectory, timeoutInSeconds);
     }
@@ -60,11 +55,29 @@ final class ProcessExecutor {
         }
     }
 
-    public int executeAndRedirectOutput(final Logger logger) throws ProcessExecutionException {
-        OutputStream stdout = new LoggerOutputStream(logger::info);
-        OutputStream stderr = new LoggerOutputStream(logger::error);
-
-        return execute(logger, stdout, stderr);
+    /**
+     * @param outputFile where to write all output to, in which case only the errors and a summary are
+     *                   logged; null to log all output
+     */
+    public int executeAndRedirectOutput(final Logger logger, final File outputFile)
+            throws ProcessExecutionException {
+        final ProcessOutput output;
+        try {
+            output = new ProcessOutput(logger::info, logger::error, outputFile);
+        } catch (IOException e) {
+            throw new ProcessExecutionException(e);
+        }
+        int exitValue = -1;
+        try {
+            exitValue = execute(logger, output.getStdout(), output.getStderr());
+            return exitValue;
+        } finally {
+            try {
+                output.close(exitValue != 0);
+            } catch (IOException e) {
+                logger.warn("Could not write the output to {}: {}", outputFile, e.getMessage());
+            }
+        }
     }
 
     private int execute(final Logger logger, final OutputStream stdout, final OutputStream stderr)
@@ -99,40 +112,6 @@ final class ProcessExecutor {
         return commmandLine;
     }
 
-    private Map<String, String> createEnvironment(final List<String> paths, final Platform platform, final Map<String, String> additionalEnvironment) {
-        final Map<String, String> environment = new HashMap<>(System.getenv());
-
-        if (additionalEnvironment != null) {
-            environment.putAll(additionalEnvironment);
-        }
-
-        if (platform.isWindows()) {
-            for (final Map.Entry<String, String> entry : environment.entrySet()) {
-                final String pathName = entry.getKey();
-                if (PATH_ENV_VAR.equalsIgnoreCase(pathName)) {
-                    final String pathValue = entry.getValue();
-                    environment.put(pathName, extendPathVariable(pathValue, paths));
-                }
-            }
-        } else {
-            final String pathValue = environment.get(PATH_ENV_VAR);
-            environment.put(PATH_ENV_VAR, extendPathVariable(pathValue, paths));
-        }
-
-        return environment;
-    }
-
-    private String extendPathVariable(final String existingValue, final List<String> paths) {
-        final StringBuilder pathBuilder = new StringBuilder();
-        for (final String path : paths) {
-            pathBuilder.append(path).append(File.pathSeparator);
-        }
-        if (existingValue != null) {
-            pathBuilder.append(existingValue).append(File.pathSeparator);
-        }
-        return pathBuilder.toString();
-    }
-
     private Executor createExecutor(File workingDirectory, long timeoutInSeconds) {
         DefaultExecutor executor = new DefaultExecutor();
         executor.setWorkingDirectory(workingDirectory);
@@ -144,23 +123,4 @@ final class ProcessExecutor {
 
         return executor;
     }
-
-    private static class LoggerOutputStream extends LogOutputStream {
-        private final Consumer<String> logger;
-
-        LoggerOutputStream(Consumer<String> logger) {
-            super(0);
-            this.logger = logger;
-        }
-
-        @Override
-        public final void flush() {
-            // buffer processing on close() only
-        }
-
-        @Override
-        protected void processLine(final String line, final int logLevel) {
-            logger.accept(line);
-        }
-    }
 }
@@ -0,0 +1,235 @@
+package com.github.eirslett.maven.plugins.frontend.lib;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Passes the output of a process on to the log without holding the process up. The threads that read the
+ * output of the process only split it into lines and put those into a bounded queue, from which a thread of
+ * its own logs them, so a slow console or CI log doesn't make the process wait for its pipes.
+ * <p>
+ * Progress updates, that end with a carriage return instead of a newline, overwrite each other on a
+ * terminal; only one of them per second is logged, and none that are overwritten by a line.
+ * <p>
+ * With an output file, everything goes into the file and the log only gets the errors, the last lines of
+ * the output if the process failed, and where to find the rest.
+ */
+final class ProcessOutput {
+
+    private static final int QUEUE_CAPACITY = 8192;
+
+    private static final long PROGRESS_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
+    private static final int TAIL_LINES = 30;
+
+    private static final Line END = new Line(null, false);
+
+    private final Consumer<String> info;
+
+    private final Consumer<String> error;
+
+    private final File outputFile;
+
+    private final Writer writer;
+
+    private final Deque<String> tail = new ArrayDeque<>();
+
+    private final BlockingQueue<Line> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+    private final Thread sink;
+
+    private final LineOutputStream stdout = new LineOutputStream(false);
+
+    private final LineOutputStream stderr = new LineOutputStream(true);
+
+    /**
+     * @param outputFile where to write all output to, or null to log all of it
+     */
+    ProcessOutput(Consumer<String> info, Consumer<String> error, File outputFile) throws IOException {
+        this.info = info;
+        this.error = error;
+        this.outputFile = outputFile;
+        if (outputFile != null) {
+            outputFile.getAbsoluteFile().getParentFile().mkdirs();
+            this.writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(outputFile, true),
+                    Charset.defaultCharset()));
+        } else {
+            this.writer = null;
+        }
+        this.sink = new Thread(this::log, "frontend-output");
+        this.sink.setDaemon(true);
+        this.sink.start();
+    }
+
+    OutputStream getStdout() {
+        return stdout;
+    }
+
+    OutputStream getStderr() {
+        return stderr;
+    }
+
+    /**
+     * Logs what's left of the output, and waits until all of it is logged.
+     */
+    void close(boolean failed) throws IOException {
+        try {
+            stdout.close();
+            stderr.close();
+        } finally {
+            put(END);
+            try {
+                sink.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (writer != null) {
+                writer.close();
+                if (failed && !tail.isEmpty()) {
+                    info.accept("Last lines of the output:");
+                    tail.forEach(info);
+                }
+                info.accept("The output was written to " + outputFile);
+            }
+        }
+    }
+
+    private void log() {
+        try {
+            for (Line line = queue.take(); line != END; line = queue.take()) {
+                if (line.error) {
+                    error.accept(line.text);
+                } else {
+                    info.accept(line.text);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void emit(String text, boolean isError) throws IOException {
+        if (writer != null) {
+            synchronized (writer) {
+                writer.write(text);
+                writer.write(System.lineSeparator());
+                if (!isError) {
+                    if (tail.size() == TAIL_LINES) {
+                        tail.removeFirst();
+                    }
+                    tail.addLast(text);
+                    return;
+                }
+            }
+        }
+        put(new Line(text, isError));
+    }
+
+    private void put(Line line) {
+        try {
+            // blocks only if the log is QUEUE_CAPACITY lines behind, which keeps the memory use bounded
+            queue.put(line);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class Line {
+        private final String text;
+        private final boolean error;
+
+        Line(String text, boolean error) {
+            this.text = text;
+            this.error = error;
+        }
+    }
+
+    private final class LineOutputStream extends OutputStream {
+        private final boolean error;
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+        private boolean carriageReturn;
+        private String pendingProgress;
+        private long lastProgress;
+        private boolean progressLogged;
+        private boolean closed;
+
+        LineOutputStream(boolean error) {
+            this.error = error;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (carriageReturn) {
+                carriageReturn = false;
+                if (b == '\n') {
+                    endLine(false);
+                    return;
+                }
+                endLine(true);
+            }
+            if (b == '\r') {
+                carriageReturn = true;
+            } else if (b == '\n') {
+                endLine(false);
+            } else {
+                buffer.write(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            for (int i = off; i < off + len; i++) {
+                write(b[i]);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (carriageReturn || buffer.size() > 0) {
+                endLine(carriageReturn);
+                carriageReturn = false;
+            }
+            if (pendingProgress != null) {
+                emit(pendingProgress, error);
+                pendingProgress = null;
+            }
+        }
+
+        private void endLine(boolean progress) throws IOException {
+            String line = buffer.toString(Charset.defaultCharset());
+            buffer.reset();
+            if (!progress) {
+                // the line overwrites the last progress update
+                pendingProgress = null;
+                emit(line, error);
+            } else if (!line.isEmpty()) {
+                long now = System.nanoTime();
+                if (!progressLogged || now - lastProgress >= PROGRESS_INTERVAL) {
+                    progressLogged = true;
+                    lastProgress = now;
+                    pendingProgress = null;
+                    emit(line, error);
+                } else {
+                    pendingProgress = line;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package com.github.eirslett.maven.plugins.frontend.lib;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.archivers.tar.TarConstants;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipParameters;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Caches the output directory of a task, like a webpack build, under a fingerprint of everything that goes
+ * into it: the content of its input files, its arguments and environment, the installed Node.js version and
+ * the lockfiles of the project. If the task ran with the same inputs before, its output is restored from the
+ * cache instead of running it again.
+ * <p>
+ * Only the {@link #MAX_SNAPSHOTS} most recently stored or restored outputs of each task are kept, across all
+ * projects that use the same cache.
+ * <p>
+ * Errors while reading or writing the cache are logged and otherwise ignored; the task just runs then.
+ */
+public final class TaskOutputCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TaskOutputCache.class);
+
+    private static final String NAME = "task-output";
+
+    private static final String EXTENSION = "tar.gz";
+
+    static final int MAX_SNAPSHOTS = 5;
+
+    private static final String[] PROJECT_FILES = {
+        "package.json", "package-lock.json", "npm-shrinkwrap.json", "yarn.lock", "pnpm-lock.yaml", "bun.lock",
+        "bun.lockb"
+    };
+
+    private final String task;
+
+    private final Path workingDirectory;
+
+    private final CacheResolver cacheResolver;
+
+    private final ArchiveExtractor archiveExtractor;
+
+    private final MessageDigest digest;
+
+    private String fingerprint;
+
+    TaskOutputCache(String task, NodeExecutorConfig config, CacheResolver cacheResolver,
+            ArchiveExtractor archiveExtractor) {
+        this.task = task;
+        this.workingDirectory = config.getWorkingDirectory().getAbsoluteFile().toPath();
+        this.cacheResolver = cacheResolver;
+        this.archiveExtractor = archiveExtractor;
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        addInput("task", task);
+        String node = InstallManifest.describe(config.getNodePath());
+        if (node != null) {
+            addInput("node", node);
+        } else {
+            addInputFile(config.getNodePath());
+        }
+        for (String projectFile : PROJECT_FILES) {
+            addInputFile(new File(config.getWorkingDirectory(), projectFile));
+        }
+    }
+
+    public TaskOutputCache addInput(String name, String value) {
+        update("input " + name + "=" + value);
+        return this;
+    }
+
+    public TaskOutputCache addInputs(String name, Map<String, String> values) {
+        if (values != null) {
+            for (Map.Entry<String, String> value : new TreeMap<>(values).entrySet()) {
+                addInput(name + "." + value.getKey(), value.getValue());
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Adds the names and content of the file, or of all files below the directory, to the fingerprint. A
+     * missing file is an input too.
+     */
+    public TaskOutputCache addInputFile(File file) {
+        Path root = file.toPath();
+        if (!Files.exists(root)) {
+            update("missing " + getName(root));
+            return this;
+        }
+        try (Stream<Path> paths = Files.walk(root)) {
+            // the walk order differs between file systems
+            List<Path> files = paths.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+            for (Path path : files) {
+                update("file " + getName(path) + " " + Files.size(path));
+                try (InputStream in = Files.newInputStream(path)) {
+                    byte[] buffer = new byte[64 * 1024];
+                    for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+                        this.digest.update(buffer, 0, read);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Could not read {} ({}), the {} output will not be cached", file, e.getMessage(), this.task);
+            this.fingerprint = "";
+        }
+        return this;
+    }
+
+    /**
+     * Replaces the output directory with the output of an earlier run with the same inputs, so no files of
+     * another run are left in it.
+     *
+     * @return false if there is no such output, and the task has to run
+     */
+    public boolean restore(File outputDirectory) {
+        return restore(outputDirectory, true);
+    }
+
+    /**
+     * Copies the output of an earlier run with the same inputs into the output directory.
+     *
+     * @param replace whether to delete the output directory first, rather than adding to what it contains;
+     *                it is never deleted if it contains the working directory
+     * @return false if there is no such output, and the task has to run
+     */
+    public boolean restore(File outputDirectory, boolean replace) {
+        File entry = getEntry();
+        if (entry == null || !entry.isFile()) {
+            return false;
+        }
+        try {
+            Path directory = outputDirectory.getAbsoluteFile().toPath().normalize();
+            if (replace && outputDirectory.exists() && !this.workingDirectory.normalize().startsWith(directory)) {
+                FileUtils.deleteDirectory(outputDirectory);
+            }
+            this.archiveExtractor.extract(entry.getPath(), outputDirectory.getPath(), Function.identity(),
+                getLinkRoot(outputDirectory).toString());
+            // the most recently used outputs are kept
+            entry.setLastModified(System.currentTimeMillis());
+            LOGGER.info("Restored the {} output in {} from {}", this.task, outputDirectory, entry);
+            return true;
+        } catch (IOException | ArchiveExtractionException e) {
+            LOGGER.warn("Could not restore the {} output from {} ({}), running {}", this.task, entry,
+                e.getMessage(), this.task);
+            entry.delete();
+            return false;
+        }
+    }
+
+    /**
+     * Stores the output directory, as written by the task, for later runs with the same inputs.
+     */
+    public void store(File outputDirectory) {
+        File entry = getEntry();
+        if (entry == null || !outputDirectory.isDirectory()) {
+            return;
+        }
+        Path tempFile = null;
+        try {
+            entry.getAbsoluteFile().getParentFile().mkdirs();
+            tempFile = Files.createTempFile(entry.getAbsoluteFile().getParentFile().toPath(), entry.getName(), ".tmp");
+            try (OutputStream out = Files.newOutputStream(tempFile)) {
+                archive(outputDirectory.toPath(), getLinkRoot(outputDirectory), out);
+            }
+            try {
+                Files.move(tempFile, entry.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, entry.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            LOGGER.info("Stored the {} output in {}", this.task, entry);
+            evictSnapshots(entry);
+        } catch (IOException e) {
+            LOGGER.warn("Could not store the {} output in {} ({})", this.task, entry, e.getMessage());
+        } finally {
+            if (tempFile != null) {
+                tempFile.toFile().delete();
+            }
+        }
+    }
+
+    /**
+     * Deletes all but the {@link #MAX_SNAPSHOTS} most recently used outputs of the task, which are next to the
+     * entry and only differ from it in the fingerprint.
+     */
+    private void evictSnapshots(File entry) throws IOException {
+        String name = entry.getName();
+        String prefix = name.substring(0, name.length() - this.fingerprint.length() - EXTENSION.length() - 1);
+        Pattern snapshot = Pattern.compile(Pattern.quote(prefix) + "[0-9a-f]{64}" + Pattern.quote("." + EXTENSION));
+        File[] snapshots = entry.getAbsoluteFile().getParentFile().listFiles(
+            file -> snapshot.matcher(file.getName()).matches());
+        if (snapshots == null || snapshots.length <= MAX_SNAPSHOTS) {
+            return;
+        }
+        Arrays.sort(snapshots, Comparator.comparingLong(File::lastModified).reversed());
+        for (int i = MAX_SNAPSHOTS; i < snapshots.length; i++) {
+            if (!snapshots[i].equals(entry.getAbsoluteFile())) {
+                LOGGER.debug("Deleting the {} output {}", this.task, snapshots[i]);
+                Files.deleteIfExists(snapshots[i].toPath());
+            }
+        }
+    }
+
+    /**
+     * Links may point anywhere in the working directory, like the links of a workspace from
+     * {@code node_modules} to its packages, as long as the output directory is inside it.
+     */
+    private Path getLinkRoot(File outputDirectory) {
+        Path directory = outputDirectory.getAbsoluteFile().toPath().normalize();
+        Path workingDirectory = this.workingDirectory.normalize();
+        return directory.startsWith(workingDirectory) ? workingDirectory : directory;
+    }
+
+    /**
+     * Writes the directory as a tar archive, which unlike a zip file keeps symbolic links (like the ones in
+     * {@code node_modules/.bin}) and executable permissions. A link out of the link root couldn't be restored,
+     * so the directory isn't archived at all then.
+     */
+    private static void archive(Path directory, Path linkRoot, OutputStream out) throws IOException {
+        GzipParameters parameters = new GzipParameters();
+        // the snapshot is written after every change of the inputs, so it's worth trading size for speed
+        parameters.setCompressionLevel(Deflater.BEST_SPEED);
+        try (Stream<Path> paths = Files.walk(directory);
+             TarArchiveOutputStream tar = new TarArchiveOutputStream(
+                 new GzipCompressorOutputStream(new BufferedOutputStream(out), parameters))) {
+            tar.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+            tar.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
+            List<Path> entries = paths.filter(path -> !path.equals(directory)).sorted().collect(Collectors.toList());
+            for (Path path : entries) {
+                // tar entry names always use forward slashes
+                List<String> names = new ArrayList<>();
+                for (Path name : directory.relativize(path)) {
+                    names.add(name.toString());
+                }
+                String name = String.join("/", names);
+                if (Files.isSymbolicLink(path)) {
+                    TarArchiveEntry entry = new TarArchiveEntry(name, TarConstants.LF_SYMLINK);
+                    entry.setLinkName(getLinkTarget(linkRoot, path));
+                    tar.putArchiveEntry(entry);
+                } else if (Files.isDirectory(path)) {
+                    tar.putArchiveEntry(new TarArchiveEntry(name + "/"));
+                } else {
+                    TarArchiveEntry entry = new TarArchiveEntry(name);
+                    entry.setSize(Files.size(path));
+                    entry.setMode(Files.isExecutable(path) ? 0755 : 0644);
+                    tar.putArchiveEntry(entry);
+                    Files.copy(path, tar);
+                }
+                tar.closeArchiveEntry();
+            }
+        }
+    }
+
+    /**
+     * Links to absolute paths inside the link root are made relative, so they still work when the
+     * directory is restored somewhere else.
+     */
+    private static String getLinkTarget(Path linkRoot, Path link) throws IOException {
+        Path target = Files.readSymbolicLink(link);
+        Path resolved = link.toAbsolutePath().getParent().resolve(target).normalize();
+        if (!resolved.startsWith(linkRoot)) {
+            throw new IOException(link + " links to " + target + ", outside of " + linkRoot);
+        }
+        if (target.isAbsolute()) {
+            target = link.toAbsolutePath().getParent().relativize(resolved);
+        }
+        return target.toString();
+    }
+
+    private File getEntry() {
+        if (this.fingerprint == null) {
+            this.fingerprint = Checksum.toHex(this.digest.digest());
+        }
+        if (this.fingerprint.isEmpty()) {
+            return null;
+        }
+        return this.cacheResolver.resolve(new CacheDescriptor(NAME, this.task, this.fingerprint, EXTENSION));
+    }
+
+    /**
+     * Files are identified relative to the working directory, so checkouts in different places share outputs.
+     */
+    private String getName(Path file) {
+        Path path = file.toAbsolutePath().normalize();
+        return path.startsWith(this.workingDirectory) ? this.workingDirectory.relativize(path).toString() : path.toString();
+    }
+
+    private void update(String value) {
+        this.digest.update(value.getBytes(StandardCharsets.UTF_8));
+        this.digest.update((byte) 0);
+    }
+}
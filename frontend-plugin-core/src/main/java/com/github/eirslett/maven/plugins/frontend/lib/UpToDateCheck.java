@@ -0,0 +1,338 @@
+package com.github.eirslett.maven.plugins.frontend.lib;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Tells whether the inputs of a task changed since it last ran successfully, by comparing the size and
+ * modification time of the input files with a state file written after that run. Optionally, the content
+ * of files whose size or modification time changed is compared too, so touching a file (or checking it out
+ * again) doesn't count as a change.
+ * <p>
+ * Directories are scanned in parallel, on the common fork-join pool. Symbolic links below them aren't
+ * followed, but recorded by their target, so links back to a parent directory don't make the scan loop.
+ */
+public final class UpToDateCheck {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(UpToDateCheck.class);
+
+    private static final String INPUT_PREFIX = "input:";
+
+    private static final String FILE_PREFIX = "file:";
+
+    private final File stateFile;
+
+    private final boolean compareContent;
+
+    private final Map<String, String> inputs = new TreeMap<>();
+
+    private final List<File> inputFiles = new ArrayList<>();
+
+    private Map<String, FileState> snapshot;
+
+    /**
+     * @param stateFile where the inputs of the last successful run are kept
+     * @param compareContent whether to compare the content of files whose size or modification time changed
+     */
+    public UpToDateCheck(File stateFile, boolean compareContent) {
+        this.stateFile = stateFile;
+        this.compareContent = compareContent;
+    }
+
+    public UpToDateCheck addInput(String name, String value) {
+        this.inputs.put(name, String.valueOf(value));
+        return this;
+    }
+
+    public UpToDateCheck addInputs(String name, Map<String, String> values) {
+        if (values != null) {
+            for (Map.Entry<String, String> value : values.entrySet()) {
+                addInput(name + "." + value.getKey(), value.getValue());
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Adds the file, or all files below the directory, to the inputs. A missing file is an input too.
+     */
+    public UpToDateCheck addInputFile(File file) {
+        this.inputFiles.add(file);
+        return this;
+    }
+
+    /**
+     * Takes a snapshot of the inputs and compares it with the state of the last successful run. If files
+     * were only touched, the state is updated with their new modification times, so later checks don't
+     * have to compare their content again.
+     */
+    public boolean isUpToDate() {
+        Properties state = readState();
+        try {
+            this.snapshot = takeSnapshot();
+        } catch (IOException | UncheckedIOException e) {
+            LOGGER.warn("Could not check whether the inputs changed: {}", e.getMessage());
+            this.snapshot = null;
+            return false;
+        }
+        if (state == null || state.size() != this.inputs.size() + this.snapshot.size()) {
+            return false;
+        }
+        for (Map.Entry<String, String> input : this.inputs.entrySet()) {
+            if (!input.getValue().equals(state.getProperty(INPUT_PREFIX + input.getKey()))) {
+                return false;
+            }
+        }
+        boolean upToDate = this.snapshot.entrySet().parallelStream().allMatch(file -> {
+            FileState previous = FileState.parse(state.getProperty(FILE_PREFIX + file.getKey()));
+            return previous != null && file.getValue().matches(previous, this.compareContent);
+        });
+        if (upToDate && this.snapshot.values().stream().anyMatch(file -> file.touched)) {
+            // all hashes are known by now
+            writeState();
+        }
+        return upToDate;
+    }
+
+    /**
+     * Records the snapshot taken by {@link #isUpToDate()} as the state of the last successful run. Files
+     * that changed while the task ran will count as changed in the next check.
+     */
+    public void markUpToDate() {
+        if (this.snapshot == null) {
+            return;
+        }
+        if (this.compareContent) {
+            this.snapshot.values().parallelStream().forEach(FileState::hashIfUnchanged);
+        }
+        writeState();
+    }
+
+    private void writeState() {
+        Properties state = new Properties();
+        for (Map.Entry<String, String> input : this.inputs.entrySet()) {
+            state.setProperty(INPUT_PREFIX + input.getKey(), input.getValue());
+        }
+        try {
+            for (Map.Entry<String, FileState> file : this.snapshot.entrySet()) {
+                state.setProperty(FILE_PREFIX + file.getKey(), file.getValue().toString());
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            state.store(out, null);
+            this.stateFile.getAbsoluteFile().getParentFile().mkdirs();
+            Utils.writeAtomically(this.stateFile.toPath(), out.toByteArray());
+        } catch (IOException | UncheckedIOException e) {
+            // only costs a run of the task in the next build
+            LOGGER.warn("Could not write {}: {}", this.stateFile, e.getMessage());
+        }
+    }
+
+    private Properties readState() {
+        if (!this.stateFile.isFile()) {
+            return null;
+        }
+        Properties state = new Properties();
+        try (InputStream in = Files.newInputStream(this.stateFile.toPath())) {
+            state.load(in);
+            return state;
+        } catch (IOException e) {
+            LOGGER.debug("Could not read {}", this.stateFile, e);
+            return null;
+        }
+    }
+
+    private Map<String, FileState> takeSnapshot() throws IOException {
+        Map<String, FileState> files = new ConcurrentHashMap<>();
+        List<ScanDirectory> directories = new ArrayList<>();
+        for (File inputFile : this.inputFiles) {
+            Path path = inputFile.getAbsoluteFile().toPath().normalize();
+            if (Files.isDirectory(path)) {
+                directories.add(new ScanDirectory(path, files));
+            } else if (Files.exists(path)) {
+                files.put(path.toString(), new FileState(path, Files.readAttributes(path, BasicFileAttributes.class)));
+            } else {
+                files.put(path.toString(), FileState.MISSING);
+            }
+        }
+        ForkJoinPool.commonPool().invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(directories);
+            }
+        });
+        return new TreeMap<>(files);
+    }
+
+    /**
+     * Records the files in the directory, and forks a task for each subdirectory.
+     */
+    private static final class ScanDirectory extends RecursiveAction {
+
+        private final Path directory;
+
+        private final Map<String, FileState> files;
+
+        ScanDirectory(Path directory, Map<String, FileState> files) {
+            this.directory = directory;
+            this.files = files;
+        }
+
+        @Override
+        protected void compute() {
+            List<ScanDirectory> subdirectories = new ArrayList<>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(this.directory)) {
+                for (Path entry : entries) {
+                    BasicFileAttributes attributes = Files.readAttributes(entry, BasicFileAttributes.class,
+                        LinkOption.NOFOLLOW_LINKS);
+                    if (attributes.isSymbolicLink()) {
+                        this.files.put(entry.toString(), FileState.link(Files.readSymbolicLink(entry)));
+                    } else if (attributes.isDirectory()) {
+                        subdirectories.add(new ScanDirectory(entry, this.files));
+                    } else {
+                        this.files.put(entry.toString(), new FileState(entry, attributes));
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            invokeAll(subdirectories);
+        }
+    }
+
+    private static final class FileState {
+
+        static final FileState MISSING = new FileState(null, -1, -1, null);
+
+        private static final long LINK = -2;
+
+        private final Path path;
+
+        private final long size;
+
+        private final long lastModified;
+
+        private String hash;
+
+        /**
+         * Whether only the modification time changed, which {@link #matches} found out.
+         */
+        private boolean touched;
+
+        FileState(Path path, BasicFileAttributes attributes) {
+            this(path, attributes.size(), attributes.lastModifiedTime().toMillis(), null);
+        }
+
+        private FileState(Path path, long size, long lastModified, String hash) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.hash = hash;
+        }
+
+        /**
+         * A symbolic link is identified by its target, in place of the hash.
+         */
+        static FileState link(Path target) {
+            try {
+                MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                return new FileState(null, LINK, 0,
+                    Checksum.toHex(digest.digest(target.toString().getBytes(StandardCharsets.UTF_8))));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        static FileState parse(String value) {
+            if (value == null) {
+                return null;
+            }
+            String[] fields = value.split(" ");
+            try {
+                return new FileState(null, Long.parseLong(fields[0]), Long.parseLong(fields[1]),
+                    fields.length > 2 ? fields[2] : null);
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                return null;
+            }
+        }
+
+        boolean matches(FileState previous, boolean compareContent) {
+            if (this.size != previous.size) {
+                return false;
+            }
+            if (this.size == LINK) {
+                return Objects.equals(this.hash, previous.hash);
+            }
+            if (this.lastModified == previous.lastModified) {
+                this.hash = previous.hash;
+                return true;
+            }
+            if (!compareContent || this.path == null || previous.hash == null) {
+                return false;
+            }
+            this.hash = hash();
+            this.touched = previous.hash.equals(this.hash);
+            return this.touched;
+        }
+
+        /**
+         * Hashes the file, unless it changed since the snapshot was taken, as the hash then isn't the one
+         * of the content the task saw. A hash known from the comparison with the last state is kept.
+         */
+        void hashIfUnchanged() {
+            if (this.path == null || this.hash != null) {
+                return;
+            }
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(this.path, BasicFileAttributes.class);
+                if (attributes.size() == this.size && attributes.lastModifiedTime().toMillis() == this.lastModified) {
+                    this.hash = hash();
+                }
+            } catch (IOException e) {
+                this.hash = null;
+            }
+        }
+
+        private String hash() {
+            try (InputStream in = Files.newInputStream(this.path)) {
+                MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                byte[] buffer = new byte[64 * 1024];
+                for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+                    digest.update(buffer, 0, read);
+                }
+                return Checksum.toHex(digest.digest());
+            } catch (IOException e) {
+                return null;
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return this.size + " " + this.lastModified + (this.hash != null ? " " + this.hash : "");
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.github.eirslett.maven.plugins.frontend.lib;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -24,7 +25,7 @@ final class YarnExecutor {
         return executor.executeAndGetResult(logger);
     }
 
-    public int executeAndRedirectOutput(final Logger logger) throws ProcessExecutionException {
-        return executor.executeAndRedirectOutput(logger);
+    public int executeAndRedirectOutput(final Logger logger, final File outputFile) throws ProcessExecutionException {
+        return executor.executeAndRedirectOutput(logger, outputFile);
     }
 }
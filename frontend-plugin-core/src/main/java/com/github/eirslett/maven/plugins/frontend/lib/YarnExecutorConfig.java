@@ -13,6 +13,20 @@ public interface YarnExecutorConfig {
     Platform getPlatform();
 
     boolean isYarnBerry();
+
+    /**
+     * @return the file to write the output of the processes to instead of the log, none by default
+     */
+    default File getOutputFile() {
+        return null;
+    }
+
+    /**
+     * @return where to record the time spent, nowhere by default
+     */
+    default Metrics getMetrics() {
+        return Metrics.NONE;
+    }
 }
 
 final class InstallYarnExecutorConfig implements YarnExecutorConfig {
@@ -59,4 +73,14 @@ final class InstallYarnExecutorConfig implements YarnExecutorConfig {
     public boolean isYarnBerry() {
         return isYarnBerry;
     }
+
+    @Override
+    public File getOutputFile() {
+        return installConfig.getOutputFile();
+    }
+
+    @Override
+    public Metrics getMetrics() {
+        return installConfig.getMetrics();
+    }
 }
\ No newline at end of file
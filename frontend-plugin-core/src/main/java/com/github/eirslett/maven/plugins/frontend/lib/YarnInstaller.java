@@ -18,8 +18,6 @@ public class YarnInstaller {
     public static final String DEFAULT_YARN_DOWNLOAD_ROOT =
         "https://github.com/yarnpkg/yarn/releases/download/";
 
-    private static final Object LOCK = new Object();
-
     private static final String YARN_ROOT_DIRECTORY = "dist";
 
     private String yarnVersion, yarnDownloadRoot, userName, password;
@@ -74,11 +72,15 @@ public class YarnInstaller {
     }
 
     public void install() throws InstallationException {
-        // use static lock object for a synchronized block
-        synchronized (LOCK) {
-            if (yarnDownloadRoot == null || yarnDownloadRoot.isEmpty()) {
-                yarnDownloadRoot = DEFAULT_YARN_DOWNLOAD_ROOT;
-            }
+        File nodeDirectory = new File(this.config.getInstallDirectory(), NodeInstaller.INSTALL_PATH);
+        // the other executions of the build that install into the same directory don't check it again
+        this.config.getInstallRegistry().install("yarn", this.yarnVersion, nodeDirectory,
+            this.config.getMetrics(), () -> installIfMissing(nodeDirectory));
+    }
+
+    private void installIfMissing(File nodeDirectory) throws InstallationException {
+        // installations into other directories, also by other processes, don't have to wait for this one
+        try (InstallLocks.Lock lock = InstallLocks.lockDirectory(nodeDirectory)) {
             if (!yarnIsAlreadyInstalled()) {
                 if (!yarnVersion.startsWith("v")) {
                     throw new InstallationException("Yarn version has to start with prefix 'v'.");
@@ -88,6 +90,22 @@ public class YarnInstaller {
         }
     }
 
+    /**
+     * Downloads Yarn into the cache, so that {@link #install()} only has to extract it. Unlike installing, this
+     * doesn't need Node.js, so it can run while Node.js is being installed. Nothing is downloaded if some
+     * version of Yarn is installed already; {@link #install()} downloads another version if needed.
+     */
+    public void download() throws InstallationException {
+        if (new File(config.getInstallDirectory(), INSTALL_PATH).exists()) {
+            return;
+        }
+        try {
+            downloadArchive();
+        } catch (DownloadException e) {
+            throw new InstallationException("Could not download Yarn", e);
+        }
+    }
+
     private boolean yarnIsAlreadyInstalled() {
         try {
             YarnExecutorConfig executorConfig = new InstallYarnExecutorConfig(config, isYarnBerry);
@@ -119,17 +137,7 @@ public class YarnInstaller {
     private void installYarn() throws InstallationException {
         try {
             logger.info("Installing Yarn version {}", yarnVersion);
-            String downloadUrl = yarnDownloadRoot + yarnVersion;
-            String extension = "tar.gz";
-            String fileending = "/yarn-" + yarnVersion + "." + extension;
-
-            downloadUrl += fileending;
-
-            CacheDescriptor cacheDescriptor = new CacheDescriptor("yarn", yarnVersion, extension);
-
-            File archive = config.getCacheResolver().resolve(cacheDescriptor);
-
-            downloadFileIfMissing(downloadUrl, archive, userName, password, httpHeaders);
+            File archive = downloadArchive();
 
             File installDirectory = getInstallDirectory();
 
@@ -171,6 +179,24 @@ public class YarnInstaller {
         }
     }
 
+    private File downloadArchive() throws DownloadException {
+        if (yarnDownloadRoot == null || yarnDownloadRoot.isEmpty()) {
+            yarnDownloadRoot = DEFAULT_YARN_DOWNLOAD_ROOT;
+        }
+        String downloadUrl = yarnDownloadRoot + yarnVersion;
+        String extension = "tar.gz";
+        String fileending = "/yarn-" + yarnVersion + "." + extension;
+
+        downloadUrl += fileending;
+
+        CacheDescriptor cacheDescriptor = new CacheDescriptor("yarn", yarnVersion, extension);
+
+        File archive = config.getCacheResolver().resolve(cacheDescriptor);
+
+        downloadFileIfMissing(downloadUrl, archive, userName, password, httpHeaders);
+        return archive;
+    }
+
     private File getInstallDirectory() {
         File installDirectory = new File(config.getInstallDirectory(), INSTALL_PATH);
         if (!installDirectory.exists()) {
@@ -203,8 +229,10 @@ public class YarnInstaller {
 
     private void downloadFileIfMissing(String downloadUrl, File destination, String userName, String password, Map<String, String> httpHeaders)
         throws DownloadException {
-        if (!destination.exists()) {
-            downloadFile(downloadUrl, destination, userName, password, httpHeaders);
+        try (InstallLocks.Lock lock = InstallLocks.lockFile(destination)) {
+            if (!destination.exists()) {
+                downloadFile(downloadUrl, destination, userName, password, httpHeaders);
+            }
         }
     }
 
@@ -0,0 +1,92 @@
+package com.github.eirslett.maven.plugins.frontend.lib;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+public class BuildMetricsTest {
+
+    @TempDir
+    public File temp;
+
+    @Test
+    public void reportsTheMetricsOfEveryModuleAndInTotal() throws Exception {
+        File reportFile = new File(temp, "target/metrics.json");
+        BuildMetrics buildMetrics = new BuildMetrics(reportFile);
+        Metrics module = buildMetrics.forModule("com.example:web");
+
+        File downloaded = new File(temp, "node.tar.gz");
+        FileDownloader downloader = module.measure(
+                (downloadUrl, destination, userName, password, header, connections, checksum) -> {
+                    try {
+                        Files.write(new File(destination).toPath(), new byte[100]);
+                    } catch (IOException e) {
+                        throw new DownloadException("Could not write " + destination, e);
+                    }
+                });
+        downloader.download("https://example.com/node.tar.gz", downloaded.getPath(), null, null, null);
+        File cached = new File(temp, "npm.tgz");
+        Files.write(cached.toPath(), new byte[50]);
+        ArchiveExtractor extractor = module.measure((archive, destinationDirectory, entryMapping, linkRoot) ->
+                Arrays.asList("bin/node", "README.md", "LICENSE").forEach(entryMapping::apply));
+        extractor.extract(downloaded.getPath(), temp.getPath(), name -> name.startsWith("bin/") ? name : null);
+        extractor.extract(cached.getPath(), temp.getPath());
+        module.installation("node", "v22.0.0", 1_000_000, false);
+        buildMetrics.forModule("com.example:app").installation("node", "v22.0.0", 1_000, true);
+        buildMetrics.forModule("com.example:app").task("webpack", 2_000_000, 1);
+        buildMetrics.close();
+
+        JsonNode report = new ObjectMapper().readTree(reportFile);
+        Assertions.assertEquals(1, report.path("downloads").path("count").asInt());
+        Assertions.assertEquals(100, report.path("downloads").path("bytes").asLong());
+        Assertions.assertEquals(2, report.path("extractions").path("count").asInt());
+        Assertions.assertEquals(4, report.path("extractions").path("entries").asInt());
+        Assertions.assertEquals(1, report.path("extractions").path("cacheHits").asInt());
+        Assertions.assertEquals(1, report.path("extractions").path("cacheMisses").asInt());
+        Assertions.assertEquals(2, report.path("installations").path("count").asInt());
+        Assertions.assertEquals(1, report.path("installations").path("reused").asInt());
+        Assertions.assertEquals(1, report.path("tasks").path("failed").asInt());
+
+        JsonNode modules = report.path("modules");
+        Assertions.assertEquals(2, modules.size());
+        Assertions.assertEquals("com.example:web", modules.get(0).path("module").asText());
+        Assertions.assertEquals(4, modules.get(0).path("events").size());
+        Assertions.assertEquals(0, modules.get(1).path("downloads").path("count").asInt());
+        Assertions.assertEquals("webpack", modules.get(1).path("events").get(1).path("name").asText());
+    }
+
+    @Test
+    public void archiveDownloadedForAnotherModuleIsNoCacheHit() throws Exception {
+        File reportFile = new File(temp, "metrics.json");
+        BuildMetrics buildMetrics = new BuildMetrics(reportFile);
+        File archive = new File(temp, "node.tar.gz");
+        buildMetrics.forModule("com.example:web").measure(
+                (downloadUrl, destination, userName, password, header, connections, checksum) -> { })
+            .download("https://example.com/node.tar.gz", archive.getPath(), null, null, null);
+        buildMetrics.forModule("com.example:app").measure(
+                (ArchiveExtractor) (archivePath, destinationDirectory, entryMapping, linkRoot) -> { })
+            .extract(archive.getPath(), temp.getPath());
+        buildMetrics.close();
+
+        JsonNode report = new ObjectMapper().readTree(reportFile);
+        Assertions.assertEquals(0, report.path("extractions").path("cacheHits").asInt());
+        Assertions.assertEquals(1, report.path("extractions").path("cacheMisses").asInt());
+    }
+
+    @Test
+    public void writesNoReportWithoutMetrics() throws Exception {
+        File reportFile = new File(temp, "metrics.json");
+        BuildMetrics buildMetrics = new BuildMetrics(reportFile);
+        buildMetrics.forModule("com.example:web");
+        buildMetrics.close();
+
+        Assertions.assertFalse(reportFile.exists());
+    }
+}
@@ -0,0 +1,40 @@
+package com.github.eirslett.maven.plugins.frontend.lib;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ChecksumResolverTest {
+
+    @TempDir
+    public File temp;
+
+    @Test
+    public void checksumFileThatCouldNotBeDownloadedIsNotRequestedAgain() {
+        List<String> requests = new ArrayList<>();
+        FileDownloader downloader = (url, destination, userName, password, headers, connections, checksum) -> {
+            requests.add(url);
+            throw new DownloadException("Got error code 404 from the server.");
+        };
+        InstallRegistry registry = new InstallRegistry();
+        CacheResolver cacheResolver = new DirectoryCacheResolver(temp);
+
+        for (int module = 0; module < 3; module++) {
+            ChecksumResolver resolver = new ChecksumResolver(cacheResolver, downloader, registry);
+            Assertions.assertNull(resolver.getNodeChecksum("https://mirror/", "v20.0.0",
+                "node-v20.0.0-linux-x64.tar.gz", null, null, null));
+            Assertions.assertNull(resolver.getPackageChecksum("https://mirror/npm/-/", "npm", "10.0.0",
+                null, null, null));
+        }
+        Assertions.assertEquals(2, requests.size());
+
+        registry.close();
+        new ChecksumResolver(cacheResolver, downloader, registry).getNodeChecksum("https://mirror/", "v20.0.0",
+            "node-v20.0.0-linux-x64.tar.gz", null, null, null);
+        Assertions.assertEquals(3, requests.size());
+    }
+}
@@ -1,15 +1,26 @@
 package com.github.eirslett.maven.plugins.frontend.lib;
 
 
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.archivers.tar.TarConstants;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
@@ -78,6 +89,216 @@ public class DefaultArchiveExtractorTest {
         Assertions.assertThrows(ArchiveExtractionException.class, () -> extractor.extract(BAD_TAR, link.toString()));
     }
 
+    @Test
+    public void extractTarFileWithManyEntries() throws Exception {
+        File archive = new File(temp, "many.tar.gz");
+        byte[] large = new byte[1024 * 1024 + 1];
+        new Random(42).nextBytes(large);
+        try (TarArchiveOutputStream out = new TarArchiveOutputStream(
+                new GzipCompressorOutputStream(Files.newOutputStream(archive.toPath())))) {
+            out.putArchiveEntry(new TarArchiveEntry("package/lib/"));
+            out.closeArchiveEntry();
+            for (int i = 0; i < 500; i++) {
+                addTarEntry(out, "package/lib/file" + i + ".js", ("content " + i).getBytes(StandardCharsets.UTF_8), 0644);
+            }
+            addTarEntry(out, "package/bin/large", large, 0755);
+            addTarEntry(out, "package/empty", new byte[0], 0644);
+        }
+        File destination = new File(temp, "destination");
+
+        extractor.extract(archive.getPath(), destination.getPath());
+
+        for (int i = 0; i < 500; i++) {
+            Assertions.assertEquals("content " + i, new String(
+                Files.readAllBytes(new File(destination, "package/lib/file" + i + ".js").toPath()), StandardCharsets.UTF_8));
+        }
+        File largeFile = new File(destination, "package/bin/large");
+        Assertions.assertArrayEquals(large, Files.readAllBytes(largeFile.toPath()));
+        Assertions.assertTrue(largeFile.canExecute());
+        Assertions.assertEquals(0, new File(destination, "package/empty").length());
+    }
+
+    @Test
+    public void extractOnlyMappedTarEntries() throws Exception {
+        File archive = new File(temp, "mapped.tar.gz");
+        try (TarArchiveOutputStream out = new TarArchiveOutputStream(
+                new GzipCompressorOutputStream(Files.newOutputStream(archive.toPath())))) {
+            addTarEntry(out, "node-v1/bin/node", new byte[] {1}, 0755);
+            addTarEntry(out, "node-v1/include/node.h", new byte[] {2}, 0644);
+        }
+        File destination = new File(temp, "destination");
+
+        extractor.extract(archive.getPath(), destination.getPath(),
+            name -> name.equals("node-v1/bin/node") ? "node" : null);
+
+        Assertions.assertArrayEquals(new String[] {"node"}, destination.list());
+        Assertions.assertTrue(new File(destination, "node").canExecute());
+    }
+
+    @Test
+    public void extractTruncatedTarFile() throws Exception {
+        File archive = new File(temp, "truncated.tar.gz");
+        Files.write(archive.toPath(), Arrays.copyOf(Files.readAllBytes(new File(GOOD_TAR).toPath()), 100));
+
+        ArchiveExtractionException e = Assertions.assertThrows(ArchiveExtractionException.class, () ->
+                extractor.extract(archive.getPath(), new File(temp, "destination").getPath()));
+        Assertions.assertTrue(e.getCause() instanceof EOFException);
+    }
+
+    @Test
+    public void extractTarFileWithSymlinks() throws Exception {
+        File archive = new File(temp, "links.tar.gz");
+        try (TarArchiveOutputStream out = new TarArchiveOutputStream(
+                new GzipCompressorOutputStream(Files.newOutputStream(archive.toPath())))) {
+            addTarEntry(out, "node_modules/webpack/bin/webpack.js", new byte[] {1}, 0755);
+            addTarSymlink(out, "node_modules/.bin/webpack", "../webpack/bin/webpack.js");
+        }
+        File destination = new File(temp, "destination");
+
+        try {
+            extractor.extract(archive.getPath(), destination.getPath());
+        } catch (ArchiveExtractionException e) {
+            assumeTrue(false, "symlinks not supported");
+        }
+
+        Path link = destination.toPath().resolve("node_modules/.bin/webpack");
+        Assertions.assertTrue(Files.isSymbolicLink(link));
+        Assertions.assertArrayEquals(new byte[] {1}, Files.readAllBytes(link));
+    }
+
+    @Test
+    public void extractTarFileOverHardLinksReplacesThem() throws Exception {
+        File archive = new File(temp, "node.tar.gz");
+        try (TarArchiveOutputStream out = new TarArchiveOutputStream(
+                new GzipCompressorOutputStream(Files.newOutputStream(archive.toPath())))) {
+            addTarEntry(out, "node", new byte[] {2}, 0755);
+            addTarEntry(out, "node_modules/npm/package.json", new byte[] {2}, 0644);
+        }
+        File shared = new File(temp, "store/node");
+        shared.getParentFile().mkdirs();
+        Files.write(shared.toPath(), new byte[] {1});
+        File destination = new File(temp, "destination");
+        new File(destination, "node_modules/npm").mkdirs();
+        try {
+            Files.createLink(new File(destination, "node").toPath(), shared.toPath());
+            Files.createLink(new File(destination, "node_modules/npm/package.json").toPath(), shared.toPath());
+        } catch (IOException | UnsupportedOperationException e) {
+            assumeTrue(false, "hard links not supported");
+        }
+
+        extractor.extract(archive.getPath(), destination.getPath());
+
+        Assertions.assertArrayEquals(new byte[] {2}, Files.readAllBytes(new File(destination, "node").toPath()));
+        Assertions.assertArrayEquals(new byte[] {2},
+            Files.readAllBytes(new File(destination, "node_modules/npm/package.json").toPath()));
+        Assertions.assertArrayEquals(new byte[] {1}, Files.readAllBytes(shared.toPath()));
+        Assertions.assertFalse(shared.canExecute());
+    }
+
+    @Test
+    public void extractTarFileWithRepeatedEntriesKeepsTheLastOne() throws Exception {
+        File archive = new File(temp, "repeated.tar.gz");
+        byte[] large = new byte[1024 * 1024 + 1];
+        new Random(42).nextBytes(large);
+        try (TarArchiveOutputStream out = new TarArchiveOutputStream(
+                new GzipCompressorOutputStream(Files.newOutputStream(archive.toPath())))) {
+            for (int i = 0; i < 100; i++) {
+                addTarEntry(out, "package/index.js", ("content " + i).getBytes(StandardCharsets.UTF_8), 0644);
+                addTarEntry(out, "package/bin/cli", ("content " + i).getBytes(StandardCharsets.UTF_8), 0644);
+                addTarEntry(out, "package/bin/node", ("content " + i).getBytes(StandardCharsets.UTF_8), 0644);
+            }
+            addTarEntry(out, "package/bin/node", large, 0755);
+            addTarSymlink(out, "package/bin/cli", "../index.js");
+        }
+        File destination = new File(temp, "destination");
+
+        try {
+            extractor.extract(archive.getPath(), destination.getPath());
+        } catch (ArchiveExtractionException e) {
+            assumeTrue(false, "symlinks not supported");
+        }
+
+        Assertions.assertEquals("content 99", new String(
+            Files.readAllBytes(new File(destination, "package/index.js").toPath()), StandardCharsets.UTF_8));
+        Assertions.assertArrayEquals(large, Files.readAllBytes(new File(destination, "package/bin/node").toPath()));
+        Path link = destination.toPath().resolve("package/bin/cli");
+        Assertions.assertTrue(Files.isSymbolicLink(link));
+        Assertions.assertEquals("content 99", new String(Files.readAllBytes(link), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void extractTarFileWithSymlinkOutOfDestination() throws Exception {
+        File archive = new File(temp, "escape.tar.gz");
+        try (TarArchiveOutputStream out = new TarArchiveOutputStream(
+                new GzipCompressorOutputStream(Files.newOutputStream(archive.toPath())))) {
+            addTarSymlink(out, "escape", "../..");
+        }
+
+        Assertions.assertThrows(ArchiveExtractionException.class, () ->
+                extractor.extract(archive.getPath(), new File(temp, "destination").getPath()));
+        Assertions.assertFalse(Files.exists(temp.toPath().resolve("destination/escape"), LinkOption.NOFOLLOW_LINKS));
+    }
+
+    @Test
+    public void extractZipFileWithManyEntries() throws Exception {
+        File archive = new File(temp, "bun.zip");
+        byte[][] contents = new byte[200][];
+        Random random = new Random(42);
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(archive.toPath()))) {
+            out.putNextEntry(new ZipEntry("bun-linux-x64/"));
+            for (int i = 0; i < contents.length; i++) {
+                contents[i] = new byte[random.nextInt(64 * 1024)];
+                random.nextBytes(contents[i]);
+                out.putNextEntry(new ZipEntry("bun-linux-x64/lib/" + (i % 10) + "/file-" + i));
+                out.write(contents[i]);
+            }
+            out.putNextEntry(new ZipEntry("README"));
+        }
+        File destination = new File(temp, "destination");
+
+        extractor.extract(archive.getPath(), destination.getPath(),
+            name -> name.startsWith("bun-linux-x64/") ? name.substring("bun-linux-x64/".length()) : null);
+
+        for (int i = 0; i < contents.length; i++) {
+            Assertions.assertArrayEquals(contents[i],
+                Files.readAllBytes(destination.toPath().resolve("lib/" + (i % 10) + "/file-" + i)));
+        }
+        Assertions.assertFalse(new File(destination, "README").exists());
+    }
+
+    @Test
+    public void extractZipFileWithEntryOutOfDestinationWritesNothing() throws Exception {
+        File archive = new File(temp, "escape.zip");
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(archive.toPath()))) {
+            out.putNextEntry(new ZipEntry("bin/bun"));
+            out.write(new byte[] {1});
+            out.putNextEntry(new ZipEntry("../escape"));
+            out.write(new byte[] {1});
+        }
+        File destination = new File(temp, "destination");
+
+        Assertions.assertThrows(RuntimeException.class, () ->
+                extractor.extract(archive.getPath(), destination.getPath()));
+        Assertions.assertFalse(new File(destination, "bin/bun").exists());
+        Assertions.assertFalse(new File(temp, "escape").exists());
+    }
+
+    private static void addTarSymlink(TarArchiveOutputStream out, String name, String target) throws IOException {
+        TarArchiveEntry entry = new TarArchiveEntry(name, TarConstants.LF_SYMLINK);
+        entry.setLinkName(target);
+        out.putArchiveEntry(entry);
+        out.closeArchiveEntry();
+    }
+
+    private static void addTarEntry(TarArchiveOutputStream out, String name, byte[] content, int mode) throws IOException {
+        TarArchiveEntry entry = new TarArchiveEntry(name);
+        entry.setSize(content.length);
+        entry.setMode(mode);
+        out.putArchiveEntry(entry);
+        out.write(content);
+        out.closeArchiveEntry();
+    }
+
     private void assertBadZipThrowsException(File targetDir) {
         Assertions.assertThrows(RuntimeException.class, () ->
                 extractor.extract(BAD_ZIP, targetDir.getPath()));
@@ -0,0 +1,275 @@
+package com.github.eirslett.maven.plugins.frontend.lib;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class DefaultFileDownloaderTest {
+
+    private static final String ETAG = "\"v1\"";
+
+    @TempDir
+    public File temp;
+
+    private HttpServer server;
+
+    private byte[] content;
+
+    private byte[] largeContent;
+
+    private HttpClientCache httpClientCache;
+
+    private FileDownloader downloader;
+
+    private final List<String> rangeRequests = Collections.synchronizedList(new ArrayList<String>());
+
+    @BeforeEach
+    public void setup() throws Exception {
+        content = new byte[300 * 1024];
+        new Random(42).nextBytes(content);
+        largeContent = new byte[3 * 1024 * 1024 + 17];
+        new Random(43).nextBytes(largeContent);
+
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/archive.tar.gz", exchange -> {
+            exchange.sendResponseHeaders(200, content.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(content);
+            }
+        });
+        server.createContext("/flaky.tar.gz", exchange -> {
+            String range = exchange.getRequestHeaders().getFirst("Range");
+            String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+            rangeRequests.add(range);
+            exchange.getResponseHeaders().add("ETag", ETAG);
+            if (range != null && ETAG.equals(ifRange)) {
+                int offset = Integer.parseInt(range.replaceAll("bytes=(\\d+)-", "$1"));
+                exchange.getResponseHeaders().add("Content-Range",
+                        "bytes " + offset + "-" + (content.length - 1) + "/" + content.length);
+                exchange.sendResponseHeaders(206, content.length - offset);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(content, offset, content.length - offset);
+                }
+            } else if (rangeRequests.size() == 1) {
+                // break off the first response halfway through
+                exchange.sendResponseHeaders(200, content.length);
+                OutputStream out = exchange.getResponseBody();
+                out.write(content, 0, content.length / 2);
+                out.flush();
+                exchange.close();
+            } else {
+                exchange.sendResponseHeaders(200, content.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(content);
+                }
+            }
+        });
+        server.createContext("/large.tar.gz", exchange -> {
+            exchange.getResponseHeaders().add("ETag", ETAG);
+            exchange.getResponseHeaders().add("Accept-Ranges", "bytes");
+            if ("HEAD".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().add("Content-Length", String.valueOf(largeContent.length));
+                exchange.sendResponseHeaders(200, -1);
+                exchange.close();
+                return;
+            }
+            String range = exchange.getRequestHeaders().getFirst("Range");
+            rangeRequests.add(range);
+            int start = Integer.parseInt(range.replaceAll("bytes=(\\d+)-(\\d+)", "$1"));
+            int end = Integer.parseInt(range.replaceAll("bytes=(\\d+)-(\\d+)", "$2"));
+            exchange.getResponseHeaders().add("Content-Range",
+                    "bytes " + start + "-" + end + "/" + largeContent.length);
+            exchange.sendResponseHeaders(206, end - start + 1);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(largeContent, start, end - start + 1);
+            }
+        });
+        server.createContext("/missing.tar.gz", exchange -> {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.start();
+
+        httpClientCache = new HttpClientCache();
+        downloader = new DefaultFileDownloader(new ProxyConfig(Collections.<ProxyConfig.Proxy>emptyList()), httpClientCache);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        httpClientCache.close();
+        server.stop(0);
+    }
+
+    @Test
+    public void downloadStreamsResponseToDestination() throws Exception {
+        File destination = new File(temp, "cache/archive.tar.gz");
+
+        downloader.download(url("/archive.tar.gz"), destination.getPath(), null, null, null);
+
+        Assertions.assertArrayEquals(content, Files.readAllBytes(destination.toPath()));
+        Assertions.assertArrayEquals(new String[] {"archive.tar.gz"}, destination.getParentFile().list());
+    }
+
+    @Test
+    public void failedDownloadLeavesNoFileBehind() {
+        File destination = new File(temp, "cache/missing.tar.gz");
+
+        Assertions.assertThrows(DownloadException.class, () ->
+                downloader.download(url("/missing.tar.gz"), destination.getPath(), null, null, null));
+        Assertions.assertFalse(destination.exists());
+    }
+
+    @Test
+    public void interruptedDownloadIsResumed() throws Exception {
+        File destination = new File(temp, "cache/flaky.tar.gz");
+
+        downloader.download(url("/flaky.tar.gz"), destination.getPath(), null, null, null);
+
+        Assertions.assertArrayEquals(content, Files.readAllBytes(destination.toPath()));
+        Assertions.assertEquals(2, rangeRequests.size());
+        Assertions.assertNull(rangeRequests.get(0));
+        Assertions.assertNotNull(rangeRequests.get(1));
+        Assertions.assertArrayEquals(new String[] {"flaky.tar.gz"}, destination.getParentFile().list());
+    }
+
+    @Test
+    public void partialFileOfChangedContentIsReplaced() throws Exception {
+        File destination = new File(temp, "flaky.tar.gz");
+        Files.write(new File(temp, "flaky.tar.gz.part").toPath(), new byte[] {1, 2, 3});
+        Files.write(new File(temp, "flaky.tar.gz.part.validator").toPath(), "\"old\"".getBytes(StandardCharsets.UTF_8));
+        rangeRequests.add("first request already happened");
+
+        downloader.download(url("/flaky.tar.gz"), destination.getPath(), null, null, null);
+
+        Assertions.assertArrayEquals(content, Files.readAllBytes(destination.toPath()));
+        Assertions.assertEquals("bytes=3-", rangeRequests.get(1));
+        Assertions.assertArrayEquals(new String[] {"flaky.tar.gz"}, temp.list());
+    }
+
+    @Test
+    public void largeDownloadIsSplitIntoSegments() throws Exception {
+        File destination = new File(temp, "large.tar.gz");
+
+        downloader.download(url("/large.tar.gz"), destination.getPath(), null, null, null, 4, null);
+
+        Assertions.assertArrayEquals(largeContent, Files.readAllBytes(destination.toPath()));
+        Assertions.assertEquals(3, rangeRequests.size());
+        Assertions.assertArrayEquals(new String[] {"large.tar.gz"}, temp.list());
+    }
+
+    @Test
+    public void segmentedDownloadIsHashedInOrder() throws Exception {
+        File destination = new File(temp, "large.tar.gz");
+        Checksum checksum = Checksum.sha256(Checksum.toHex(MessageDigest.getInstance("SHA-256").digest(largeContent)));
+
+        downloader.download(url("/large.tar.gz"), destination.getPath(), null, null, null, 3, checksum);
+
+        Assertions.assertArrayEquals(largeContent, Files.readAllBytes(destination.toPath()));
+        Assertions.assertEquals(3, rangeRequests.size());
+        Assertions.assertTrue(Checksum.isVerified(destination));
+    }
+
+    @Test
+    public void segmentedDownloadNotMatchingItsChecksumIsDiscarded() throws Exception {
+        File destination = new File(temp, "large.tar.gz");
+        Checksum checksum = Checksum.sha256(Checksum.toHex(MessageDigest.getInstance("SHA-256").digest(content)));
+
+        Assertions.assertThrows(DownloadException.class, () ->
+                downloader.download(url("/large.tar.gz"), destination.getPath(), null, null, null, 3, checksum));
+        Assertions.assertEquals(3, rangeRequests.size());
+        Assertions.assertArrayEquals(new String[0], temp.list());
+    }
+
+    @Test
+    public void downloadMatchingItsChecksumIsMarkedAsVerified() throws Exception {
+        File destination = new File(temp, "archive.tar.gz");
+        Checksum checksum = Checksum.sha256(Checksum.toHex(MessageDigest.getInstance("SHA-256").digest(content)));
+
+        downloader.download(url("/archive.tar.gz"), destination.getPath(), null, null, null, 1, checksum);
+
+        Assertions.assertArrayEquals(content, Files.readAllBytes(destination.toPath()));
+        Assertions.assertTrue(Checksum.isVerified(destination));
+    }
+
+    @Test
+    public void downloadNotMatchingItsChecksumIsDiscarded() throws Exception {
+        File destination = new File(temp, "archive.tar.gz");
+        Checksum checksum = Checksum.fromIntegrity("sha512-"
+            + Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-512").digest(new byte[] {1})));
+
+        Assertions.assertThrows(DownloadException.class, () ->
+                downloader.download(url("/archive.tar.gz"), destination.getPath(), null, null, null, 1, checksum));
+        Assertions.assertFalse(Checksum.isVerified(destination));
+        Assertions.assertArrayEquals(new String[0], temp.list());
+    }
+
+    @Test
+    public void fileFromLocalMirrorIsLinkedIntoPlace() throws Exception {
+        File source = new File(temp, "mirror/archive.tar.gz");
+        source.getParentFile().mkdirs();
+        Files.write(source.toPath(), content);
+        File destination = new File(temp, "cache/archive.tar.gz");
+        Checksum checksum = Checksum.sha256(Checksum.toHex(MessageDigest.getInstance("SHA-256").digest(content)));
+
+        downloader.download(source.toURI().toString(), destination.getPath(), null, null, null, 1, checksum);
+
+        Assertions.assertArrayEquals(content, Files.readAllBytes(destination.toPath()));
+        Assertions.assertTrue(Files.isSameFile(source.toPath(), destination.toPath()));
+        Assertions.assertTrue(Checksum.isVerified(destination));
+    }
+
+    @Test
+    public void fileFromLocalMirrorVerifiedBeforeIsNotHashedAgain() throws Exception {
+        File source = new File(temp, "mirror/archive.tar.gz");
+        source.getParentFile().mkdirs();
+        Files.write(source.toPath(), content);
+        Checksum checksum = Checksum.sha256(Checksum.toHex(MessageDigest.getInstance("SHA-256").digest(content)));
+        checksum.markVerified(source);
+        // same size and modification time, so only hashing would notice the change
+        long lastModified = source.lastModified();
+        byte[] changed = content.clone();
+        changed[0]++;
+        Files.write(source.toPath(), changed);
+        source.setLastModified(lastModified);
+        File destination = new File(temp, "cache/archive.tar.gz");
+
+        downloader.download(source.toURI().toString(), destination.getPath(), null, null, null, 1, checksum);
+
+        Assertions.assertTrue(Files.isSameFile(source.toPath(), destination.toPath()));
+        Assertions.assertTrue(Checksum.isVerified(destination));
+    }
+
+    @Test
+    public void fileFromLocalMirrorNotMatchingItsChecksumIsLeftAlone() throws Exception {
+        File source = new File(temp, "mirror/archive.tar.gz");
+        source.getParentFile().mkdirs();
+        Files.write(source.toPath(), content);
+        File destination = new File(temp, "cache/archive.tar.gz");
+        Checksum checksum = Checksum.sha256(Checksum.toHex(MessageDigest.getInstance("SHA-256").digest(new byte[] {1})));
+
+        Assertions.assertThrows(DownloadException.class, () -> downloader.download(source.toURI().toString(),
+                destination.getPath(), null, null, null, 1, checksum));
+        Assertions.assertArrayEquals(content, Files.readAllBytes(source.toPath()));
+        Assertions.assertArrayEquals(new String[0], destination.getParentFile().list());
+    }
+
+    private String url(String path) {
+        return "http://localhost:" + server.getAddress().getPort() + path;
+    }
+}
@@ -0,0 +1,40 @@
+package com.github.eirslett.maven.plugins.frontend.lib;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+public class InstallLocksTest {
+
+    @TempDir
+    public File temp;
+
+    @Test
+    public void directoryLockOnlyExcludesInstallsIntoTheSameDirectory() throws Exception {
+        File directory = new File(temp, "project/node");
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> sameDirectory;
+            try (InstallLocks.Lock lock = InstallLocks.lockDirectory(directory)) {
+                Assertions.assertTrue(new File(directory, ".install.lock").isFile());
+
+                executor.submit(() -> InstallLocks.lockDirectory(new File(temp, "other/node")).close())
+                    .get(10, TimeUnit.SECONDS);
+
+                sameDirectory = executor.submit(() ->
+                    InstallLocks.lockDirectory(new File(temp, "other/../project/node")).close());
+                Assertions.assertThrows(TimeoutException.class, () -> sameDirectory.get(200, TimeUnit.MILLISECONDS));
+            }
+            sameDirectory.get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.github.eirslett.maven.plugins.frontend.lib;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+
+public class InstallManifestTest {
+
+    @TempDir
+    public File temp;
+
+    @Test
+    public void versionIsOnlyTrustedWhileTheBinaryIsUnchanged() throws Exception {
+        File binary = new File(temp, "node");
+        Files.write(binary.toPath(), new byte[] {1, 2, 3});
+        Assertions.assertNull(InstallManifest.readVersion(binary, "linux-x64"));
+
+        InstallManifest.write(binary, "v20.10.0", "linux-x64");
+
+        Assertions.assertEquals("v20.10.0", InstallManifest.readVersion(binary, "linux-x64"));
+        Assertions.assertNull(InstallManifest.readVersion(binary, "darwin-arm64"));
+
+        Files.write(binary.toPath(), new byte[] {1, 2, 3, 4});
+        Assertions.assertNull(InstallManifest.readVersion(binary, "linux-x64"));
+    }
+}
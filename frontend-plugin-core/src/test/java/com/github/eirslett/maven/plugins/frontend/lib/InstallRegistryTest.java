@@ -0,0 +1,104 @@
+package com.github.eirslett.maven.plugins.frontend.lib;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class InstallRegistryTest {
+
+    @TempDir
+    public File temp;
+
+    @Test
+    public void concurrentInstallationsIntoTheSameDirectoryRunOnce() throws Exception {
+        InstallRegistry registry = new InstallRegistry();
+        File directory = new File(temp, "node");
+        AtomicInteger installations = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> installs = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                installs.add(executor.submit(() -> {
+                    registry.install("node", "v22.0.0", directory, Metrics.NONE, () -> {
+                        installations.incrementAndGet();
+                        started.countDown();
+                        await(finish);
+                        directory.mkdirs();
+                    });
+                    return null;
+                }));
+            }
+            Assertions.assertTrue(started.await(10, TimeUnit.SECONDS));
+            finish.countDown();
+            for (Future<?> install : installs) {
+                install.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Assertions.assertEquals(1, installations.get());
+
+        registry.install("node", "v20.0.0", directory, Metrics.NONE, installations::incrementAndGet);
+        registry.install("node", "v22.0.0", new File(temp, "other/node"), Metrics.NONE, installations::incrementAndGet);
+        Assertions.assertEquals(3, installations.get());
+    }
+
+    @Test
+    public void failedOrRemovedInstallationsAreInstalledAgain() throws Exception {
+        InstallRegistry registry = new InstallRegistry();
+        File directory = new File(temp, "node");
+        AtomicInteger installations = new AtomicInteger();
+
+        Assertions.assertThrows(InstallationException.class,
+            () -> registry.install("node", "v22.0.0", directory, Metrics.NONE, () -> {
+                installations.incrementAndGet();
+                throw new InstallationException("download failed");
+            }));
+        registry.install("node", "v22.0.0", directory, Metrics.NONE, () -> {
+            installations.incrementAndGet();
+            directory.mkdirs();
+        });
+        registry.install("node", "v22.0.0", directory, Metrics.NONE, installations::incrementAndGet);
+        Assertions.assertEquals(2, installations.get());
+
+        directory.delete();
+        registry.install("node", "v22.0.0", directory, Metrics.NONE, installations::incrementAndGet);
+        Assertions.assertEquals(3, installations.get());
+    }
+
+    @Test
+    public void versionInstalledBeforeAnotherOneIsInstalledAgain() throws Exception {
+        InstallRegistry registry = new InstallRegistry();
+        File directory = new File(temp, "node");
+        List<String> installed = new ArrayList<>();
+
+        for (String version : new String[] {"v20.0.0", "v22.0.0", "v20.0.0", "v20.0.0"}) {
+            registry.install("node", version, directory, Metrics.NONE, () -> {
+                installed.add(version);
+                directory.mkdirs();
+            });
+        }
+        Assertions.assertEquals(Arrays.asList("v20.0.0", "v22.0.0", "v20.0.0"), installed);
+    }
+
+    private static void await(CountDownLatch latch) throws InstallationException {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            throw new InstallationException("interrupted", e);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.github.eirslett.maven.plugins.frontend.lib;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class InstallStoreTest {
+
+    @TempDir
+    public File temp;
+
+    @Test
+    public void entryIsPopulatedOnceAndLinkedIntoTarget() throws Exception {
+        InstallStore store = new InstallStore(new DirectoryCacheResolver(new File(temp, "cache")));
+        AtomicInteger populated = new AtomicInteger();
+        InstallStore.Populator populator = directory -> {
+            populated.incrementAndGet();
+            new File(directory, "node_modules/npm").mkdirs();
+            Files.write(new File(directory, "node_modules/npm/package.json").toPath(),
+                "{}".getBytes(StandardCharsets.UTF_8));
+        };
+
+        File entry = store.getEntry("node", "v1.0.0", "linux-x64", populator);
+        Assertions.assertEquals(entry, store.getEntry("node", "v1.0.0", "linux-x64", populator));
+        Assertions.assertEquals(1, populated.get());
+        Assertions.assertArrayEquals(new String[] {entry.getName()}, new File(temp, "cache").list((dir, name) -> !name.endsWith(".lock")));
+
+        File target = new File(temp, "project/node/node_modules");
+        store.link(new File(entry, "node_modules"), target);
+
+        Assertions.assertEquals("{}", new String(
+            Files.readAllBytes(new File(target, "npm/package.json").toPath()), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void filesOfAnEntryAreReadOnly() throws Exception {
+        assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+        InstallStore store = new InstallStore(new DirectoryCacheResolver(new File(temp, "cache")));
+
+        File entry = store.getEntry("node", "v1.0.0", "linux-x64", directory -> {
+            directory.mkdirs();
+            Files.write(new File(directory, "node").toPath(), new byte[] {1});
+        });
+        File target = new File(temp, "project/node/node");
+        target.getParentFile().mkdirs();
+        store.link(new File(entry, "node"), target);
+
+        Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(target.toPath());
+        Assertions.assertFalse(permissions.contains(PosixFilePermission.OWNER_WRITE));
+        Assertions.assertFalse(permissions.contains(PosixFilePermission.GROUP_WRITE));
+        Assertions.assertFalse(permissions.contains(PosixFilePermission.OTHERS_WRITE));
+    }
+}
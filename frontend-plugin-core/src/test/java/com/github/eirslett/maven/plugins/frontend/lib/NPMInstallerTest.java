@@ -0,0 +1,188 @@
+package com.github.eirslett.maven.plugins.frontend.lib;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class NPMInstallerTest {
+
+    private static final String DOWNLOAD_ROOT = "https://registry.example/npm/-/";
+
+    private static final String VERSION = "10.0.0";
+
+    @TempDir
+    public File temp;
+
+    private final Map<String, byte[]> served = new HashMap<>();
+
+    private final List<String> requests = new ArrayList<>();
+
+    private final List<Checksum> checksums = new ArrayList<>();
+
+    private InstallConfig config;
+
+    @BeforeEach
+    public void setup() {
+        config = new DefaultInstallConfig(temp, temp, new DirectoryCacheResolver(new File(temp, "cache")),
+            Platform.guess(), new InstallRegistry(), null, Metrics.NONE);
+    }
+
+    @Test
+    public void packageDirectoryIsExtractedAsNpm() throws Exception {
+        served.put(DOWNLOAD_ROOT + "npm-" + VERSION + ".tgz", tarball("package/"));
+
+        newInstaller().install();
+
+        File nodeModules = new File(temp, "node/node_modules");
+        Assertions.assertArrayEquals(new String[] {"npm"}, nodeModules.list());
+        Assertions.assertTrue(new File(nodeModules, "npm/package.json").isFile());
+        Assertions.assertTrue(new File(nodeModules, "npm/bin/npm").isFile());
+        Assertions.assertTrue(new File(temp, "node/npm").isFile());
+    }
+
+    @Test
+    public void archiveWithoutPackageDirectoryIsExtractedAsItIs() throws Exception {
+        // like the archives of the old download root, nodejs.org/dist/npm
+        served.put(DOWNLOAD_ROOT + "npm-" + VERSION + ".tgz", tarball("npm/"));
+
+        newInstaller().install();
+
+        File nodeModules = new File(temp, "node/node_modules");
+        Assertions.assertArrayEquals(new String[] {"npm"}, nodeModules.list());
+        Assertions.assertTrue(new File(nodeModules, "npm/package.json").isFile());
+    }
+
+    @Test
+    public void previousInstallationIsReplaced() throws Exception {
+        File stale = new File(temp, "node/node_modules/npm/lib/removed.js");
+        stale.getParentFile().mkdirs();
+        Files.write(stale.toPath(), new byte[] {1});
+        served.put(DOWNLOAD_ROOT + "npm-" + VERSION + ".tgz", tarball("package/"));
+
+        newInstaller().install();
+
+        Assertions.assertFalse(stale.exists());
+        Assertions.assertTrue(new File(temp, "node/node_modules/npm/package.json").isFile());
+    }
+
+    @Test
+    public void downloadOnlyPutsTheArchiveInTheCache() throws Exception {
+        String url = DOWNLOAD_ROOT + "npm-" + VERSION + ".tgz";
+        served.put(url, tarball("package/"));
+
+        newInstaller().download();
+
+        Assertions.assertTrue(requests.contains(url));
+        Assertions.assertFalse(new File(temp, "node").exists());
+
+        served.remove(url);
+        newInstaller().install();
+
+        Assertions.assertEquals(1, requests.stream().filter(url::equals).count());
+        Assertions.assertTrue(new File(temp, "node/node_modules/npm/package.json").isFile());
+    }
+
+    @Test
+    public void downloadDoesNothingWhenNpmIsProvidedOrInstalled() throws Exception {
+        newInstaller().setNodeVersion("v20.0.0").setNpmVersion("provided").download();
+
+        File packageJson = new File(temp, "node/node_modules/npm/package.json");
+        packageJson.getParentFile().mkdirs();
+        Files.write(packageJson.toPath(), "{\"version\":\"9.0.0\"}".getBytes(StandardCharsets.UTF_8));
+        newInstaller().download();
+
+        Assertions.assertEquals(new ArrayList<>(), requests);
+    }
+
+    @Test
+    public void downloadIsVerifiedWithTheRegistryIntegrity() throws Exception {
+        byte[] tarball = tarball("package/");
+        served.put(DOWNLOAD_ROOT + "npm-" + VERSION + ".tgz", tarball);
+        served.put("https://registry.example/npm/" + VERSION, metadata(tarball));
+
+        newInstaller().download();
+
+        Assertions.assertEquals(1, checksums.size());
+        File archive = config.getCacheResolver().resolve(new CacheDescriptor("npm", VERSION, "tar.gz"));
+        Assertions.assertTrue(checksums.get(0).verify(archive));
+    }
+
+    @Test
+    public void cachedArchiveNotMatchingTheRegistryIntegrityIsDownloadedAgain() throws Exception {
+        byte[] tarball = tarball("package/");
+        String url = DOWNLOAD_ROOT + "npm-" + VERSION + ".tgz";
+        served.put(url, tarball);
+        served.put("https://registry.example/npm/" + VERSION, metadata(tarball));
+        File archive = config.getCacheResolver().resolve(new CacheDescriptor("npm", VERSION, "tar.gz"));
+        Files.write(archive.toPath(), new byte[] {1});
+
+        newInstaller().install();
+
+        Assertions.assertTrue(requests.contains(url));
+        Assertions.assertArrayEquals(tarball, Files.readAllBytes(archive.toPath()));
+        Assertions.assertTrue(new File(temp, "node/node_modules/npm/package.json").isFile());
+    }
+
+    private NPMInstaller newInstaller() {
+        FileDownloader downloader = (url, destination, userName, password, headers, connections, checksum) -> {
+            requests.add(url);
+            if (checksum != null) {
+                checksums.add(checksum);
+            }
+            byte[] content = served.get(url);
+            if (content == null) {
+                throw new DownloadException("Got error code 404 from the server.");
+            }
+            try {
+                Files.write(new File(destination).toPath(), content);
+            } catch (IOException e) {
+                throw new DownloadException("Could not write " + destination, e);
+            }
+        };
+        return new NPMInstaller(config, new DefaultArchiveExtractor(), downloader)
+            .setNpmVersion(VERSION)
+            .setNpmDownloadRoot(DOWNLOAD_ROOT);
+    }
+
+    private static byte[] tarball(String directory) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream out = new TarArchiveOutputStream(new GzipCompressorOutputStream(bytes))) {
+            addTarEntry(out, directory + "package.json",
+                ("{\"name\":\"npm\",\"version\":\"" + VERSION + "\"}").getBytes(StandardCharsets.UTF_8), 0644);
+            addTarEntry(out, directory + "bin/npm", "#!/bin/sh".getBytes(StandardCharsets.UTF_8), 0755);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] metadata(byte[] tarball) throws Exception {
+        String integrity = "sha512-"
+            + Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-512").digest(tarball));
+        return ("{\"name\":\"npm\",\"version\":\"" + VERSION + "\",\"dist\":{\"integrity\":\"" + integrity
+            + "\"}}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void addTarEntry(TarArchiveOutputStream out, String name, byte[] content, int mode) throws IOException {
+        TarArchiveEntry entry = new TarArchiveEntry(name);
+        entry.setSize(content.length);
+        entry.setMode(mode);
+        out.putArchiveEntry(entry);
+        out.write(content);
+        out.closeArchiveEntry();
+    }
+}
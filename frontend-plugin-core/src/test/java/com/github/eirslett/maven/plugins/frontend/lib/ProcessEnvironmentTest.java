@@ -0,0 +1,38 @@
+package com.github.eirslett.maven.plugins.frontend.lib;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+public class ProcessEnvironmentTest {
+
+    private static final Platform LINUX = new Platform(OS.Linux, Architecture.x64);
+
+    @Test
+    public void overlaysTheEnvironmentOfTheJvm() {
+        Map<String, String> additionalEnvironment = new HashMap<>();
+        additionalEnvironment.put("FRONTEND_TEST_VARIABLE", "value");
+        Map<String, String> environment = ProcessEnvironment.create(Collections.singletonList("/node"), LINUX,
+                additionalEnvironment);
+
+        Map<String, String> expected = new HashMap<>(System.getenv());
+        expected.put("FRONTEND_TEST_VARIABLE", "value");
+        String path = System.getenv("PATH");
+        expected.put("PATH", "/node" + File.pathSeparator + (path == null ? "" : path + File.pathSeparator));
+        Assertions.assertEquals(expected, new HashMap<>(environment));
+        Assertions.assertEquals(expected.size(), environment.size());
+        Assertions.assertEquals("value", environment.get("FRONTEND_TEST_VARIABLE"));
+    }
+
+    @Test
+    public void extendsThePathOfTheProcess() {
+        Map<String, String> environment = ProcessEnvironment.create(Collections.singletonList("/node"), LINUX,
+                Collections.singletonMap("PATH", "/bin"));
+
+        Assertions.assertEquals("/node" + File.pathSeparator + "/bin" + File.pathSeparator, environment.get("PATH"));
+    }
+}
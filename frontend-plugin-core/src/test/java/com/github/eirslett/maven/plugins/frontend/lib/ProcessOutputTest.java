@@ -0,0 +1,64 @@
+package com.github.eirslett.maven.plugins.frontend.lib;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class ProcessOutputTest {
+
+    @TempDir
+    public File temp;
+
+    private final List<String> info = new CopyOnWriteArrayList<>();
+
+    private final List<String> error = new CopyOnWriteArrayList<>();
+
+    @Test
+    public void logsLinesAndSkipsOverwrittenProgressUpdates() throws Exception {
+        ProcessOutput output = new ProcessOutput(info::add, error::add, null);
+        write(output, false, "10%\r20%\r30%\rdone\r\nnext\nlast");
+        write(output, true, "warning\n");
+        output.close(false);
+
+        Assertions.assertEquals(Arrays.asList("10%", "done", "next", "last"), info);
+        Assertions.assertEquals(Collections.singletonList("warning"), error);
+    }
+
+    @Test
+    public void logsTheLastProgressUpdate() throws Exception {
+        ProcessOutput output = new ProcessOutput(info::add, error::add, null);
+        write(output, false, "started\n10%\r20%\r30%\r");
+        output.close(false);
+
+        Assertions.assertEquals(Arrays.asList("started", "10%", "30%"), info);
+    }
+
+    @Test
+    public void writesTheOutputToTheFile() throws Exception {
+        File outputFile = new File(temp, "output/webpack.log");
+        ProcessOutput output = new ProcessOutput(info::add, error::add, outputFile);
+        write(output, false, "compiling\n");
+        write(output, true, "error\n");
+        write(output, false, "failed\n");
+        output.close(true);
+
+        Assertions.assertEquals(Arrays.asList("compiling", "error", "failed"),
+                Files.readAllLines(outputFile.toPath(), Charset.defaultCharset()));
+        Assertions.assertEquals(Collections.singletonList("error"), error);
+        Assertions.assertEquals(Arrays.asList("Last lines of the output:", "compiling", "failed",
+                "The output was written to " + outputFile), info);
+    }
+
+    private static void write(ProcessOutput output, boolean toStderr, String text) throws Exception {
+        byte[] bytes = text.getBytes(Charset.defaultCharset());
+        (toStderr ? output.getStderr() : output.getStdout()).write(bytes, 0, bytes.length);
+    }
+}
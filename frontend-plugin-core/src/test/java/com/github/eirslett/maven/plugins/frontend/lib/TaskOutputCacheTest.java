@@ -0,0 +1,153 @@
+package com.github.eirslett.maven.plugins.frontend.lib;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class TaskOutputCacheTest {
+
+    @TempDir
+    public File temp;
+
+    @Test
+    public void outputIsRestoredOnlyForTheSameInputs() throws Exception {
+        FrontendPluginFactory factory = new FrontendPluginFactory(temp, temp);
+        File srcdir = new File(temp, "src");
+        File outputdir = new File(temp, "dist");
+        write(new File(srcdir, "index.js"), "console.log(1)");
+        write(new File(temp, "package-lock.json"), "{}");
+        write(new File(outputdir, "js/bundle.js"), "bundle 1");
+
+        Assertions.assertFalse(cache(factory, srcdir).restore(outputdir));
+        cache(factory, srcdir).store(outputdir);
+
+        write(new File(outputdir, "js/bundle.js"), "stale");
+        write(new File(outputdir, "js/chunk-2.js"), "from another run");
+        Assertions.assertTrue(cache(factory, srcdir).restore(outputdir));
+        Assertions.assertEquals("bundle 1", read(new File(outputdir, "js/bundle.js")));
+        Assertions.assertFalse(new File(outputdir, "js/chunk-2.js").exists());
+
+        write(new File(srcdir, "index.js"), "console.log(2)");
+        Assertions.assertFalse(cache(factory, srcdir).restore(outputdir));
+
+        write(new File(srcdir, "index.js"), "console.log(1)");
+        write(new File(temp, "package-lock.json"), "{\"lockfileVersion\": 3}");
+        Assertions.assertFalse(cache(factory, srcdir).restore(outputdir));
+    }
+
+    @Test
+    public void nodeModulesAreReplacedWithLinksAndPermissions() throws Exception {
+        FrontendPluginFactory factory = new FrontendPluginFactory(temp, temp);
+        File nodeModules = new File(temp, "node_modules");
+        write(new File(temp, "package-lock.json"), "{}");
+        File script = new File(nodeModules, "webpack/bin/webpack.js");
+        write(script, "#!/usr/bin/env node");
+        script.setExecutable(true);
+        Path link = nodeModules.toPath().resolve(".bin/webpack");
+        Files.createDirectories(link.getParent());
+        try {
+            Files.createSymbolicLink(link, link.getParent().relativize(script.toPath()));
+        } catch (IOException | UnsupportedOperationException e) {
+            assumeTrue(false, "symlinks not supported");
+        }
+        factory.getTaskOutputCache("npm-node-modules").store(nodeModules);
+
+        write(new File(nodeModules, "left-pad/index.js"), "stale");
+        Assertions.assertTrue(factory.getTaskOutputCache("npm-node-modules").restore(nodeModules, true));
+
+        Assertions.assertFalse(new File(nodeModules, "left-pad").exists());
+        Assertions.assertTrue(Files.isSymbolicLink(link));
+        Assertions.assertEquals("#!/usr/bin/env node", read(link.toFile()));
+        Assertions.assertTrue(script.canExecute());
+    }
+
+    @Test
+    public void workspaceLinksOutOfNodeModulesAreRestored() throws Exception {
+        FrontendPluginFactory factory = new FrontendPluginFactory(temp, temp);
+        File nodeModules = new File(temp, "node_modules");
+        write(new File(temp, "package-lock.json"), "{}");
+        write(new File(temp, "packages/my-lib/index.js"), "module.exports = 1");
+        Path link = nodeModules.toPath().resolve("my-lib");
+        Files.createDirectories(nodeModules.toPath());
+        try {
+            Files.createSymbolicLink(link, link.getParent().relativize(temp.toPath().resolve("packages/my-lib")));
+        } catch (IOException | UnsupportedOperationException e) {
+            assumeTrue(false, "symlinks not supported");
+        }
+        factory.getTaskOutputCache("npm-node-modules").store(nodeModules);
+
+        Assertions.assertTrue(factory.getTaskOutputCache("npm-node-modules").restore(nodeModules, true));
+
+        Assertions.assertTrue(Files.isSymbolicLink(link));
+        Assertions.assertEquals("module.exports = 1", read(link.resolve("index.js").toFile()));
+    }
+
+    @Test
+    public void nodeModulesWithLinksOutOfTheWorkingDirectoryAreNotStored() throws Exception {
+        File workingDirectory = new File(temp, "project");
+        FrontendPluginFactory factory = new FrontendPluginFactory(workingDirectory, workingDirectory);
+        File nodeModules = new File(workingDirectory, "node_modules");
+        write(new File(workingDirectory, "package-lock.json"), "{}");
+        write(new File(temp, "elsewhere/index.js"), "module.exports = 1");
+        Path link = nodeModules.toPath().resolve("elsewhere");
+        Files.createDirectories(nodeModules.toPath());
+        try {
+            Files.createSymbolicLink(link, link.getParent().relativize(temp.toPath().resolve("elsewhere")));
+        } catch (IOException | UnsupportedOperationException e) {
+            assumeTrue(false, "symlinks not supported");
+        }
+        factory.getTaskOutputCache("npm-node-modules").store(nodeModules);
+
+        Assertions.assertFalse(factory.getTaskOutputCache("npm-node-modules").restore(nodeModules, true));
+        Assertions.assertTrue(Files.isSymbolicLink(link));
+    }
+
+    @Test
+    public void onlyTheMostRecentOutputsAreKept() throws Exception {
+        File cacheDirectory = new File(temp, "cache");
+        FrontendPluginFactory factory = new FrontendPluginFactory(temp, temp, new DirectoryCacheResolver(cacheDirectory));
+        File srcdir = new File(temp, "src");
+        File outputdir = new File(temp, "dist");
+        Set<String> stored = new HashSet<>();
+        int outputs = TaskOutputCache.MAX_SNAPSHOTS + 2;
+        for (int i = 0; i < outputs; i++) {
+            write(new File(srcdir, "index.js"), "console.log(" + i + ")");
+            write(new File(outputdir, "js/bundle.js"), "bundle " + i);
+            cache(factory, srcdir).store(outputdir);
+            for (File snapshot : cacheDirectory.listFiles()) {
+                if (stored.add(snapshot.getName())) {
+                    snapshot.setLastModified(1_000_000L * (i + 1));
+                }
+            }
+        }
+
+        Assertions.assertEquals(TaskOutputCache.MAX_SNAPSHOTS, cacheDirectory.list().length);
+        for (int i = 0; i < outputs; i++) {
+            write(new File(srcdir, "index.js"), "console.log(" + i + ")");
+            Assertions.assertEquals(i >= outputs - TaskOutputCache.MAX_SNAPSHOTS, cache(factory, srcdir).restore(outputdir));
+        }
+    }
+
+    private static TaskOutputCache cache(FrontendPluginFactory factory, File srcdir) {
+        return factory.getTaskOutputCache("webpack").addInputFile(srcdir).addInput("arguments", "--mode production");
+    }
+
+    private static void write(File file, String content) throws Exception {
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String read(File file) throws Exception {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+}
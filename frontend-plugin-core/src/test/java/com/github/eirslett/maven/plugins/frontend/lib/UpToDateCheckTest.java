@@ -0,0 +1,102 @@
+package com.github.eirslett.maven.plugins.frontend.lib;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class UpToDateCheckTest {
+
+    @TempDir
+    public File temp;
+
+    @Test
+    public void changedFilesAndArgumentsAreDetected() throws Exception {
+        File srcdir = new File(temp, "src");
+        write(new File(srcdir, "app/index.js"), "console.log(1)");
+        write(new File(srcdir, "app/style.css"), "body {}");
+
+        Assertions.assertFalse(check(srcdir, "--mode production", false).isUpToDate());
+        run(check(srcdir, "--mode production", false));
+        Assertions.assertTrue(check(srcdir, "--mode production", false).isUpToDate());
+        Assertions.assertFalse(check(srcdir, "--mode development", false).isUpToDate());
+
+        File index = new File(srcdir, "app/index.js");
+        write(index, "console.log(2)");
+        // same size, and possibly the same modification time on coarse file systems
+        index.setLastModified(index.lastModified() + 2000);
+        Assertions.assertFalse(check(srcdir, "--mode production", false).isUpToDate());
+        run(check(srcdir, "--mode production", false));
+
+        write(new File(srcdir, "app/new.js"), "");
+        Assertions.assertFalse(check(srcdir, "--mode production", false).isUpToDate());
+        run(check(srcdir, "--mode production", false));
+
+        new File(srcdir, "app/new.js").delete();
+        Assertions.assertFalse(check(srcdir, "--mode production", false).isUpToDate());
+    }
+
+    @Test
+    public void touchedFilesAreUpToDateWhenComparingContent() throws Exception {
+        File srcdir = new File(temp, "src");
+        File index = new File(srcdir, "index.js");
+        write(index, "console.log(1)");
+        run(check(srcdir, null, true));
+
+        index.setLastModified(index.lastModified() - 10000);
+        Assertions.assertFalse(check(srcdir, null, false).isUpToDate());
+        Assertions.assertTrue(check(srcdir, null, true).isUpToDate());
+        // the new modification time was recorded
+        Assertions.assertTrue(check(srcdir, null, false).isUpToDate());
+
+        write(index, "console.log(2)");
+        index.setLastModified(index.lastModified() - 20000);
+        Assertions.assertFalse(check(srcdir, null, true).isUpToDate());
+    }
+
+    @Test
+    public void symbolicLinksAreRecordedByTheirTarget() throws Exception {
+        File srcdir = new File(temp, "src");
+        write(new File(srcdir, "index.js"), "console.log(1)");
+        File nodeModules = new File(srcdir, "node_modules");
+        nodeModules.mkdirs();
+        Path parentLink = nodeModules.toPath().resolve("self");
+        try {
+            // a loop, which must not be followed
+            Files.createSymbolicLink(parentLink, Paths.get(".."));
+        } catch (IOException | UnsupportedOperationException e) {
+            assumeTrue(false, "symlinks not supported");
+        }
+        run(check(srcdir, null, false));
+        Assertions.assertTrue(check(srcdir, null, false).isUpToDate());
+
+        Files.delete(parentLink);
+        Files.createSymbolicLink(parentLink, Paths.get("../.."));
+        Assertions.assertFalse(check(srcdir, null, false).isUpToDate());
+    }
+
+    private UpToDateCheck check(File srcdir, String arguments, boolean compareContent) {
+        return new UpToDateCheck(new File(temp, "target/webpack.inputs"), compareContent)
+            .addInputFile(srcdir)
+            .addInputFile(new File(temp, "webpack.config.js"))
+            .addInput("arguments", arguments);
+    }
+
+    private static void run(UpToDateCheck check) {
+        check.isUpToDate();
+        check.markUpToDate();
+    }
+
+    private static void write(File file, String content) throws Exception {
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+}